@@ -0,0 +1,103 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.benchmark;
+
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.GraphStoreOptions;
+import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.exception.GraphStoreException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AddBenchmark
+ *
+ * Writes of triplets parsed beforehand, each invocation loading all of them into a new empty store, so that no
+ * key is ever overwritten. Opening and deleting the store are not measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddBenchmark {
+    @Param({"100000"})
+    public int triplets;
+
+    @Param({"8"})
+    public int predicates;
+
+    @Param({"2"})
+    public int values;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private GraphStoreOptions options;
+    private GraphStore store;
+    private Path dbDir;
+    private Triplet[] parsed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int perSubject = 1 + predicates * values;
+        SyntheticGraph graph = new SyntheticGraph(Math.max(1, triplets / perSubject), predicates, values);
+        parsed = new Triplet[(int) graph.size()];
+        for(int i = 0; i < parsed.length; i++) {
+            parsed[i] = graph.triplet(i);
+        }
+    }
+
+    // an invocation writes the whole graph, long enough for a store per invocation
+    @Setup(Level.Invocation)
+    public void open() throws IOException, GraphStoreException {
+        dbDir = Files.createTempDirectory("graphstore-benchmark");
+        options = new GraphStoreOptions().setCreateIfMissing(true);
+        store = GraphStore.open(dbDir.toString(), options);
+    }
+
+    @TearDown(Level.Invocation)
+    public void close() throws IOException {
+        store.close();
+        options.close();
+        GraphState.delete(dbDir.toFile());
+    }
+
+    @Benchmark
+    public void add() {
+        for(Triplet triplet : parsed) {
+            store.add(triplet);
+        }
+    }
+
+    /**
+     * Writes in batches, of batchSize triplets
+     */
+    @Benchmark
+    public void addBatch() {
+        List<Triplet> batch = new ArrayList<>(batchSize);
+        for(Triplet triplet : parsed) {
+            batch.add(triplet);
+            if(batch.size() == batchSize) {
+                store.add(batch);
+                batch.clear();
+            }
+        }
+        if(!batch.isEmpty()) {
+            store.add(batch);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.benchmark;
+
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.GraphStoreOptions;
+import com.conjecto.graphstore.exception.GraphStoreException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * GraphState
+ *
+ * Store loaded with a synthetic graph once per trial, shared by the threads of the benchmark.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+    @Param({"10000"})
+    public int subjects;
+
+    @Param({"8"})
+    public int predicates;
+
+    @Param({"2"})
+    public int values;
+
+    public SyntheticGraph graph;
+    public GraphStore store;
+    private GraphStoreOptions options;
+    private Path dbDir;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, GraphStoreException {
+        graph = new SyntheticGraph(subjects, predicates, values);
+        dbDir = Files.createTempDirectory("graphstore-benchmark");
+        options = createOptions();
+        store = GraphStore.open(dbDir.toString(), options);
+        load();
+        // benchmark the steady state, not the memtables
+        store.compact();
+    }
+
+    protected GraphStoreOptions createOptions() {
+        return new GraphStoreOptions().setCreateIfMissing(true);
+    }
+
+    protected void load() {
+        store.add(graph.iterator());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        options.close();
+        delete(dbDir.toFile());
+    }
+
+    static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if(children != null) {
+            for(File child : children) {
+                delete(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
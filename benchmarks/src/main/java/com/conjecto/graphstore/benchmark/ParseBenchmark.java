@@ -0,0 +1,47 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.benchmark;
+
+import com.conjecto.graphstore.Triplet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParseBenchmark
+ *
+ * Triplet::parse on the lines of the synthetic graph, links and literals alternating.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseBenchmark {
+    private static final int LINES = 4096;
+
+    private final String[] lines = new String[LINES];
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticGraph graph = new SyntheticGraph(LINES, 8, 2);
+        for(int i = 0; i < LINES; i++) {
+            lines[i] = graph.line(i);
+        }
+    }
+
+    @Benchmark
+    public Triplet parse() {
+        Triplet triplet = Triplet.parse(lines[next]);
+        next = (next + 1) % LINES;
+        return triplet;
+    }
+}
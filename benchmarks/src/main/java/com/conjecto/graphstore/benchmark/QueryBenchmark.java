@@ -0,0 +1,79 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.benchmark;
+
+import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.TripletIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QueryBenchmark
+ *
+ * Point and prefix queries on the SPO and POS indexes, on random subjects of the synthetic graph.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    @Benchmark
+    public boolean pointSPO(GraphState state) {
+        SyntheticGraph graph = state.graph;
+        int i = ThreadLocalRandom.current().nextInt(state.subjects);
+        try (TripletIterator iterator = state.store.querySPO(graph.subject(i), graph.predicate(0), graph.object(i, 0, 0))) {
+            return iterator.hasNext();
+        }
+    }
+
+    @Benchmark
+    public void prefixSPO(GraphState state, Blackhole blackhole) {
+        int i = ThreadLocalRandom.current().nextInt(state.subjects);
+        consume(state.store.querySPO(state.graph.subject(i)), blackhole);
+    }
+
+    @Benchmark
+    public void prefixSPOPredicate(GraphState state, Blackhole blackhole) {
+        int i = ThreadLocalRandom.current().nextInt(state.subjects);
+        consume(state.store.querySPO(state.graph.subject(i), state.graph.predicate(0)), blackhole);
+    }
+
+    @Benchmark
+    public void prefixPOS(GraphState state, Blackhole blackhole) {
+        // subjects linking to a random subject
+        SyntheticGraph graph = state.graph;
+        int i = ThreadLocalRandom.current().nextInt(state.subjects);
+        consume(state.store.queryPOS(graph.predicate(0), graph.object(i, 0, 0)), blackhole);
+    }
+
+    @Benchmark
+    public void pointPOS(GraphState state, Blackhole blackhole) {
+        SyntheticGraph graph = state.graph;
+        int i = ThreadLocalRandom.current().nextInt(state.subjects);
+        consume(state.store.queryPOS(graph.predicate(0), graph.object(i, 0, 0), graph.subject(i)), blackhole);
+    }
+
+    static void consume(TripletIterator iterator, Blackhole blackhole) {
+        try {
+            while(iterator.hasNext()) {
+                Triplet triplet = iterator.next();
+                blackhole.consume(triplet.getSubject());
+                blackhole.consume(triplet.getPredicate());
+                blackhole.consume(triplet.getObject());
+            }
+        } finally {
+            iterator.close();
+        }
+    }
+}
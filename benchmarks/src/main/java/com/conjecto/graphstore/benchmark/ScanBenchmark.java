@@ -0,0 +1,65 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.benchmark;
+
+import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.iterator.PredicateIterator;
+import com.conjecto.graphstore.iterator.SubjectIterator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScanBenchmark
+ *
+ * Full scans of the synthetic graph: decoded triplets, raw keys and subject groups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ScanBenchmark {
+
+    @Benchmark
+    public void scanSPO(GraphState state, Blackhole blackhole) {
+        QueryBenchmark.consume(state.store.querySPO(), blackhole);
+    }
+
+    @Benchmark
+    public void scanPOS(GraphState state, Blackhole blackhole) {
+        QueryBenchmark.consume(state.store.queryPOS(), blackhole);
+    }
+
+    @Benchmark
+    public long countSPO(GraphState state) {
+        return state.store.querySPO().count();
+    }
+
+    @Benchmark
+    public long parallelStreamSPO(GraphState state) {
+        return state.store.querySPO().stream().parallel().map(Triplet::getObject).count();
+    }
+
+    @Benchmark
+    public void subjectIterator(GraphState state, Blackhole blackhole) {
+        SubjectIterator iterator = state.store.subjectIterator();
+        while(iterator.hasNext()) {
+            SubjectIterator.SubjectIteration subject = iterator.next();
+            blackhole.consume(subject.subject);
+            while(subject.iterator.hasNext()) {
+                PredicateIterator.PredicateIteration predicate = subject.iterator.next();
+                while(predicate.iterator.hasNext()) {
+                    blackhole.consume(predicate.iterator.next().getObject());
+                }
+            }
+        }
+    }
+}
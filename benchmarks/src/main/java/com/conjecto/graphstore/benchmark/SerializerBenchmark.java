@@ -0,0 +1,65 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.benchmark;
+
+import com.conjecto.graphstore.GraphSerializer;
+import com.conjecto.graphstore.PrefixMapping;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SerializerBenchmark
+ *
+ * Serialization of the synthetic graph in each format of the GraphSerializerRegistry, the output is discarded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SerializerBenchmark {
+    // the formats registered in GraphSerializerRegistry
+    @Param({"nt", "nq", "ttl", "jsonld", "jsonld-frame", "xml", "csv"})
+    public String format;
+
+    @Param({"1"})
+    public int parallelism;
+
+    private final PrefixMapping prefixMapping = new PrefixMapping()
+        .set("ex", "http://example.org/property/")
+        .set("res", "http://example.org/resource/");
+
+    @Benchmark
+    public long serialize(GraphState state) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        new GraphSerializer(state.store, format, prefixMapping).setParallelism(parallelism).serialize(out);
+        return out.count;
+    }
+
+    /**
+     * Discard the output, counting its bytes
+     */
+    static class CountingOutputStream extends OutputStream {
+        long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.benchmark;
+
+import com.conjecto.graphstore.Triplet;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * SyntheticGraph
+ *
+ * Deterministic graph of a given size and shape: each subject has an rdf:type and a number of predicates,
+ * each with a number of values, alternating links to other subjects and literals. One subject in ten is typed
+ * urn:resource, the root class of the framed JSON-LD serializer.
+ */
+public class SyntheticGraph implements Iterable<Triplet> {
+    private static final String RDF_TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    private static final int CLASSES = 10;
+
+    private final int subjects;
+    private final int predicates;
+    private final int values;
+
+    /**
+     * @param subjects int number of subjects
+     * @param predicates int number of predicates of each subject, besides rdf:type
+     * @param values int number of values of each predicate
+     */
+    public SyntheticGraph(int subjects, int predicates, int values) {
+        this.subjects = subjects;
+        this.predicates = predicates;
+        this.values = values;
+    }
+
+    /**
+     * @return long number of triplets
+     */
+    public long size() {
+        return (long) subjects * (1 + (long) predicates * values);
+    }
+
+    /**
+     * @param i int
+     * @return String
+     */
+    public String subject(int i) {
+        return "<http://example.org/resource/" + i + ">";
+    }
+
+    /**
+     * @param j int
+     * @return String
+     */
+    public String predicate(int j) {
+        return "<http://example.org/property/" + j + ">";
+    }
+
+    /**
+     * @param i int subject
+     * @param j int predicate
+     * @param k int value
+     * @return String
+     */
+    public String object(int i, int j, int k) {
+        if(k % 2 == 0) {
+            return subject((int) ((31L * i + 7L * j + k + 1) % subjects));
+        }
+        return "\"value " + i + " " + j + " " + k + "\"";
+    }
+
+    /**
+     * @param i int
+     * @return String
+     */
+    public String type(int i) {
+        return i % CLASSES == 0 ? "<urn:resource>" : "<http://example.org/Class/" + (i % CLASSES) + ">";
+    }
+
+    /**
+     * @param n long index of the triplet, in subject order
+     * @return String the triplet in the format of Triplet::parse
+     */
+    public String line(long n) {
+        long perSubject = 1 + (long) predicates * values;
+        int i = (int) (n / perSubject);
+        int r = (int) (n % perSubject);
+        if(r == 0) {
+            return subject(i) + "|" + RDF_TYPE + "|" + type(i);
+        }
+        int j = (r - 1) / values;
+        int k = (r - 1) % values;
+        return subject(i) + "|" + predicate(j) + "|" + object(i, j, k);
+    }
+
+    /**
+     * @param n long
+     * @return Triplet
+     */
+    public Triplet triplet(long n) {
+        return Triplet.parse(line(n));
+    }
+
+    @Override
+    public Iterator<Triplet> iterator() {
+        return new Iterator<Triplet>() {
+            private long n = 0;
+
+            @Override
+            public boolean hasNext() {
+                return n < size();
+            }
+
+            @Override
+            public Triplet next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return triplet(n++);
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+/**
+ * CacheStatistics
+ *
+ * Snapshot of the block cache and row cache usage. Hits and misses are only counted when statistics are
+ * enabled in GraphStoreOptions.
+ */
+public class CacheStatistics {
+    private final long blockCacheCapacity;
+    private final long blockCacheUsage;
+    private final long blockCachePinnedUsage;
+    private final long blockCacheHits;
+    private final long blockCacheMisses;
+    private final long rowCacheCapacity;
+    private final long rowCacheUsage;
+    private final long rowCacheHits;
+    private final long rowCacheMisses;
+
+    public CacheStatistics(long blockCacheCapacity, long blockCacheUsage, long blockCachePinnedUsage, long blockCacheHits, long blockCacheMisses,
+                           long rowCacheCapacity, long rowCacheUsage, long rowCacheHits, long rowCacheMisses) {
+        this.blockCacheCapacity = blockCacheCapacity;
+        this.blockCacheUsage = blockCacheUsage;
+        this.blockCachePinnedUsage = blockCachePinnedUsage;
+        this.blockCacheHits = blockCacheHits;
+        this.blockCacheMisses = blockCacheMisses;
+        this.rowCacheCapacity = rowCacheCapacity;
+        this.rowCacheUsage = rowCacheUsage;
+        this.rowCacheHits = rowCacheHits;
+        this.rowCacheMisses = rowCacheMisses;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCacheCapacity() {
+        return blockCacheCapacity;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCacheUsage() {
+        return blockCacheUsage;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCachePinnedUsage() {
+        return blockCachePinnedUsage;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCacheHits() {
+        return blockCacheHits;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCacheMisses() {
+        return blockCacheMisses;
+    }
+
+    /**
+     * @return double, NaN when no lookup has been counted
+     */
+    public double getBlockCacheHitRatio() {
+        return ratio(blockCacheHits, blockCacheMisses);
+    }
+
+    /**
+     * @return long
+     */
+    public long getRowCacheCapacity() {
+        return rowCacheCapacity;
+    }
+
+    /**
+     * @return long
+     */
+    public long getRowCacheUsage() {
+        return rowCacheUsage;
+    }
+
+    /**
+     * @return long
+     */
+    public long getRowCacheHits() {
+        return rowCacheHits;
+    }
+
+    /**
+     * @return long
+     */
+    public long getRowCacheMisses() {
+        return rowCacheMisses;
+    }
+
+    /**
+     * @return double, NaN when no lookup has been counted
+     */
+    public double getRowCacheHitRatio() {
+        return ratio(rowCacheHits, rowCacheMisses);
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? Double.NaN : (double) hits / (hits + misses);
+    }
+
+    /**
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "block cache " + blockCacheUsage + "/" + blockCacheCapacity + " hit ratio " + getBlockCacheHitRatio()
+            + ", row cache " + rowCacheUsage + "/" + rowCacheCapacity + " hit ratio " + getRowCacheHitRatio();
+    }
+}
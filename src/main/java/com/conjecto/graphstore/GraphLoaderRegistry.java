@@ -8,7 +8,10 @@
 
 package com.conjecto.graphstore;
 
+import com.conjecto.graphstore.loader.NQuadsLoader;
+import com.conjecto.graphstore.loader.NTriplesBulkLoader;
 import com.conjecto.graphstore.loader.NTriplesLoader;
+import com.conjecto.graphstore.loader.NTriplesParallelLoader;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -22,6 +25,9 @@ public class GraphLoaderRegistry {
 
     static {
         register("nt",  NTriplesLoader::new) ;
+        register("nt-bulk",  NTriplesBulkLoader::new) ;
+        register("nt-parallel",  NTriplesParallelLoader::new) ;
+        register("nq",  NQuadsLoader::new) ;
     }
 
     /**
@@ -0,0 +1,287 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import com.conjecto.graphstore.iterator.SubjectIterator;
+
+/**
+ * GraphReader
+ *
+ * Read operations of a store, implemented by GraphStore and by its read-only ReadSession. Serializers and
+ * queries only need a GraphReader.
+ */
+public interface GraphReader {
+    /**
+     * @return TripletIterator
+     */
+    TripletIterator querySPO();
+
+    /**
+     * @param subject String
+     * @return TripletIterator
+     */
+    TripletIterator querySPO(String subject);
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @return TripletIterator
+     */
+    TripletIterator querySPO(String subject, String predicate);
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    TripletIterator querySPO(String subject, String predicate, String object);
+
+    /**
+     * @return TripletIterator
+     */
+    TripletIterator queryPOS();
+
+    /**
+     * @param predicate String
+     * @return TripletIterator
+     */
+    TripletIterator queryPOS(String predicate);
+
+    /**
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    TripletIterator queryPOS(String predicate, String object);
+
+    /**
+     * @param predicate String
+     * @param object String
+     * @param subject String
+     * @return TripletIterator
+     */
+    TripletIterator queryPOS(String predicate, String object, String subject);
+
+    /**
+     * @return TripletIterator
+     */
+    TripletIterator queryOSP();
+
+    /**
+     * @param object String
+     * @return TripletIterator
+     */
+    TripletIterator queryOSP(String object);
+
+    /**
+     * @param object String
+     * @param subject String
+     * @return TripletIterator
+     */
+    TripletIterator queryOSP(String object, String subject);
+
+    /**
+     * @param object String
+     * @param subject String
+     * @param predicate String
+     * @return TripletIterator
+     */
+    TripletIterator queryOSP(String object, String subject, String predicate);
+
+    /**
+     * Triplets of all the graphs, sorted by graph
+     *
+     * @return TripletIterator
+     */
+    TripletIterator queryGSPO();
+
+    /**
+     * @param graph String, null for the default graph
+     * @return TripletIterator
+     */
+    TripletIterator queryGSPO(String graph);
+
+    /**
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @return TripletIterator
+     */
+    TripletIterator queryGSPO(String graph, String subject);
+
+    /**
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @return TripletIterator
+     */
+    TripletIterator queryGSPO(String graph, String subject, String predicate);
+
+    /**
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    TripletIterator queryGSPO(String graph, String subject, String predicate, String object);
+
+    /**
+     * @param graph String, null for the default graph
+     * @return TripletIterator
+     */
+    TripletIterator queryGPOS(String graph);
+
+    /**
+     * @param graph String, null for the default graph
+     * @param predicate String
+     * @return TripletIterator
+     */
+    TripletIterator queryGPOS(String graph, String predicate);
+
+    /**
+     * @param graph String, null for the default graph
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    TripletIterator queryGPOS(String graph, String predicate, String object);
+
+    /**
+     * @param graph String, null for the default graph
+     * @param predicate String
+     * @param object String
+     * @param subject String
+     * @return TripletIterator
+     */
+    TripletIterator queryGPOS(String graph, String predicate, String object, String subject);
+
+    /**
+     * Match a triple pattern in the default graph, null terms are unbound
+     *
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    TripletIterator match(String subject, String predicate, String object);
+
+    /**
+     * Match a triple pattern in a graph, null terms are unbound
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    TripletIterator match(String graph, String subject, String predicate, String object);
+
+    /**
+     * Match a triple pattern of term ids, GraphStore.ANY terms are unbound
+     *
+     * @param graph long, TermDictionary.DEFAULT_GRAPH for the default graph
+     * @param subject long
+     * @param predicate long
+     * @param object long
+     * @return TripletIterator
+     */
+    TripletIterator match(long graph, long subject, long predicate, long object);
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return QueryPlan
+     */
+    QueryPlan explain(String subject, String predicate, String object);
+
+    /**
+     * Index chosen for a triple pattern, with an estimate of the number of keys to scan
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return QueryPlan
+     */
+    QueryPlan explain(String graph, String subject, String predicate, String object);
+
+    /**
+     * @param graph long, TermDictionary.DEFAULT_GRAPH for the default graph
+     * @param subject long
+     * @param predicate long
+     * @param object long
+     * @return QueryPlan
+     */
+    QueryPlan explain(long graph, long subject, long predicate, long object);
+
+    /**
+     * Count the triplets of the default graph matching a pattern, null terms are unbound
+     *
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    long count(String subject, String predicate, String object);
+
+    /**
+     * Count the triplets of a graph matching a pattern, null terms are unbound
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    long count(String graph, String subject, String predicate, String object);
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    long estimateCount(String subject, String predicate, String object);
+
+    /**
+     * Estimate the number of triplets of a graph matching a pattern without scanning them
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    long estimateCount(String graph, String subject, String predicate, String object);
+
+    /**
+     * Statistics of the default graph
+     *
+     * @return GraphStatistics
+     */
+    GraphStatistics statistics();
+
+    /**
+     * @param graph String, null for the default graph
+     * @return GraphStatistics
+     */
+    GraphStatistics statistics(String graph);
+
+    /**
+     * @return TermDictionary
+     */
+    TermDictionary getDictionary();
+
+    /**
+     * @return SubjectIterator
+     */
+    SubjectIterator subjectIterator();
+}
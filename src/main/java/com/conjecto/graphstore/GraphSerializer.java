@@ -8,17 +8,36 @@
 
 package com.conjecto.graphstore;
 
-import java.io.IOException;
-import java.io.OutputStream;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * GraphSerializer
+ *
+ * With a parallelism greater than 1, the SPO key space of a PartitionedSerializer is split into ranges aligned
+ * to subject boundaries, serialized by a pool of workers. The ranges are either concatenated in key order, through
+ * temporary files, or written as separate shard files.
  */
 public class GraphSerializer {
+    // more ranges than workers, so that a large range does not leave the other workers idle
+    private static final int RANGES_PER_WORKER = 4;
+
     private final GraphStore store;
     private final String format;
 
     private PrefixMapping prefixMapping = new PrefixMapping();
+    private int parallelism = 1;
 
     /**
      * @param store GraphStore
@@ -33,15 +52,228 @@ public class GraphSerializer {
         }
     }
 
+    /**
+     * Number of workers serializing ranges of subjects, formats which are not partitionable are serialized
+     * sequentially
+     *
+     * @param parallelism int
+     * @return GraphSerializer
+     */
+    public GraphSerializer setParallelism(int parallelism) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
     /**
      * @param out OutputStream
      * @throws IOException I/O exception
      */
     public void serialize(OutputStream out) throws IOException {
+        Serializer w = createSerializer();
+        long start = System.nanoTime();
+        // all the queries of the serializer read the same state of the store
+        try (ReadSession session = store.newReadSession()) {
+            if(parallelism > 1 && isPartitionable(w)) {
+                serializeRanges(out, (PartitionedSerializer) w, session);
+            } else {
+                w.serialize(out, session, prefixMapping);
+            }
+        } finally {
+            store.metrics.record(GraphStoreMetrics.Operation.SERIALIZE, start);
+        }
+    }
+
+    /**
+     * Write each range of subjects as a complete document, named part-00000.{@literal <format>} and so on
+     *
+     * @param directory Path, created if missing
+     * @return List of shard files, in key order
+     * @throws IOException I/O exception
+     */
+    public List<Path> serializeShards(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Serializer w = createSerializer();
+        long start = System.nanoTime();
+        try (ReadSession session = store.newReadSession()) {
+            if(!isPartitionable(w)) {
+                Path file = directory.resolve(shardName(0));
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                    w.serialize(out, session, prefixMapping);
+                }
+                return Collections.singletonList(file);
+            }
+            PartitionedSerializer serializer = (PartitionedSerializer) w;
+            List<byte[]> boundaries = session.splitSPO(RANGES_PER_WORKER * parallelism);
+            ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+            List<Future<Path>> shards = new ArrayList<>();
+            try {
+                for(int i = 0; i + 1 < boundaries.size(); i++) {
+                    Path file = directory.resolve(shardName(i));
+                    byte[] from = boundaries.get(i);
+                    byte[] to = boundaries.get(i + 1);
+                    shards.add(workers.submit(() -> {
+                        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                            serializer.writeHeader(out, session, prefixMapping);
+                            writeRange(out, serializer, session, from, to);
+                            serializer.writeFooter(out, session, prefixMapping);
+                        }
+                        return file;
+                    }));
+                }
+                List<Path> files = new ArrayList<>();
+                for(Future<Path> shard : shards) {
+                    files.add(get(shard));
+                }
+                return files;
+            } finally {
+                // before the session releases its snapshot
+                stop(workers, shards);
+            }
+        } finally {
+            store.metrics.record(GraphStoreMetrics.Operation.SERIALIZE, start);
+        }
+    }
+
+    /**
+     * Serialize the ranges into temporary files, copied to the output in key order as soon as they are complete
+     */
+    private void serializeRanges(OutputStream out, PartitionedSerializer serializer, ReadSession session) throws IOException {
+        List<byte[]> boundaries = session.splitSPO(RANGES_PER_WORKER * parallelism);
+        Path workDir = Files.createTempDirectory("graphstore-export");
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        List<Future<Path>> ranges = new ArrayList<>();
+        try {
+            for(int i = 0; i + 1 < boundaries.size(); i++) {
+                Path file = workDir.resolve("range-" + i);
+                byte[] from = boundaries.get(i);
+                byte[] to = boundaries.get(i + 1);
+                ranges.add(workers.submit(() -> {
+                    try (OutputStream rangeOut = new BufferedOutputStream(Files.newOutputStream(file))) {
+                        writeRange(rangeOut, serializer, session, from, to);
+                    }
+                    return file;
+                }));
+            }
+
+            serializer.writeHeader(out, session, prefixMapping);
+            byte[] separator = serializer.getRangeSeparator().getBytes(StandardCharsets.UTF_8);
+            boolean written = false;
+            for(Future<Path> range : ranges) {
+                Path file = get(range);
+                // empty ranges must not add a separator
+                if(Files.size(file) > 0) {
+                    if(written) {
+                        out.write(separator);
+                    }
+                    Files.copy(file, out);
+                    written = true;
+                }
+                Files.delete(file);
+            }
+            serializer.writeFooter(out, session, prefixMapping);
+            out.flush();
+        } finally {
+            // no worker may still write to the files
+            stop(workers, ranges);
+            File[] files = workDir.toFile().listFiles();
+            if(files != null) {
+                for(File file : files) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+            Files.deleteIfExists(workDir);
+        }
+    }
+
+    private void writeRange(OutputStream out, PartitionedSerializer serializer, ReadSession session, byte[] from, byte[] to) throws IOException {
+        try (TripletIterator iterator = session.querySPO(from, to)) {
+            serializer.writeTriplets(out, session, prefixMapping, new InterruptibleIterator(iterator));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Cancel the ranges left and wait for the running ones, which stop at their next triplet
+     *
+     * @param workers ExecutorService
+     * @param futures List of Future
+     * @throws InterruptedIOException if interrupted while waiting, once the workers are stopped
+     */
+    private static void stop(ExecutorService workers, List<? extends Future<?>> futures) throws InterruptedIOException {
+        for(Future<?> future : futures) {
+            future.cancel(true);
+        }
+        workers.shutdownNow();
+        boolean interrupted = false;
+        while(true) {
+            try {
+                if(workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if(interrupted) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Iterator stopping the serialization of a range when its worker is interrupted
+     */
+    private static class InterruptibleIterator implements Iterator<Triplet> {
+        private final Iterator<Triplet> iterator;
+
+        InterruptibleIterator(Iterator<Triplet> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(Thread.currentThread().isInterrupted()) {
+                throw new UncheckedIOException(new InterruptedIOException("Range serialization cancelled"));
+            }
+            return iterator.hasNext();
+        }
+
+        @Override
+        public Triplet next() {
+            return iterator.next();
+        }
+    }
+
+    private Serializer createSerializer() {
         SerializerFactory wf = GraphSerializerRegistry.getFactory(format);
         if ( wf == null )
             throw new RuntimeException("No graph serializer for " + format);
-        Serializer w =  wf.create();
-        w.serialize(out, store, prefixMapping);
+        return wf.create();
+    }
+
+    private static boolean isPartitionable(Serializer serializer) {
+        return serializer instanceof PartitionedSerializer && ((PartitionedSerializer) serializer).isPartitionable();
+    }
+
+    private String shardName(int shard) {
+        return String.format("part-%05d.%s", shard, format);
+    }
+
+    private static <T> T get(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            if(e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
     }
 }
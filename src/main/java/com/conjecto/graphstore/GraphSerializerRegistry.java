@@ -22,6 +22,7 @@ public class GraphSerializerRegistry {
 
     static {
         register("nt", NTriplesSerializer::new) ;
+        register("nq", NQuadsSerializer::new) ;
         register("ttl",  TurtleSerializer::new) ;
         register("jsonld",  JsonLDSerializer::new) ;
         register("jsonld-frame",  JsonLDFrameSerializer::new) ;
@@ -0,0 +1,82 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import org.semanticweb.yars.nx.Node;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * GraphStatistics
+ *
+ * Number of triplets of each predicate and number of instances of each rdf:type class in a graph
+ */
+public class GraphStatistics {
+    private final Map<Node, Long> predicateCounts;
+    private final Map<Node, Long> classCounts;
+
+    /**
+     * @param predicateCounts Map of predicate to count
+     * @param classCounts Map of class to count
+     */
+    public GraphStatistics(Map<Node, Long> predicateCounts, Map<Node, Long> classCounts) {
+        this.predicateCounts = Collections.unmodifiableMap(predicateCounts);
+        this.classCounts = Collections.unmodifiableMap(classCounts);
+    }
+
+    /**
+     * @return Map of predicate to count
+     */
+    public Map<Node, Long> getPredicateCounts() {
+        return predicateCounts;
+    }
+
+    /**
+     * @return Map of class to count
+     */
+    public Map<Node, Long> getClassCounts() {
+        return classCounts;
+    }
+
+    /**
+     * @param predicate Node
+     * @return long
+     */
+    public long getPredicateCount(Node predicate) {
+        return predicateCounts.getOrDefault(predicate, 0L);
+    }
+
+    /**
+     * @param type Node
+     * @return long
+     */
+    public long getClassCount(Node type) {
+        return classCounts.getOrDefault(type, 0L);
+    }
+
+    /**
+     * @return long
+     */
+    public long getTripletCount() {
+        long count = 0;
+        for(long predicateCount : predicateCounts.values()) {
+            count += predicateCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "triplets=" + getTripletCount() + " predicates=" + predicateCounts + " classes=" + classCounts;
+    }
+}
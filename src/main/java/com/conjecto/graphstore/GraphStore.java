@@ -9,23 +9,70 @@
 package com.conjecto.graphstore;
 
 import com.conjecto.graphstore.exception.GraphStoreException;
+import com.conjecto.graphstore.exception.GraphStoreImportException;
 import com.conjecto.graphstore.exception.GraphStoreLockException;
 import com.conjecto.graphstore.exception.GraphStoreNotExistException;
 import com.conjecto.graphstore.iterator.SubjectIterator;
 import org.rocksdb.*;
+import org.semanticweb.yars.nx.Node;
 
 import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
 
 /**
  * GraphStore
  */
-public class GraphStore implements Closeable {
+public class GraphStore implements GraphReader, Closeable {
     protected RocksDB db;
+    protected String dbDir;
     protected GraphStoreOptions options;
+    protected TermDictionary dictionary;
+    protected WriteOptions writeOptions;
+
+    protected static final byte[] EMPTY_VALUE = new byte[0];
+
+    // present in the store directory while a bulk import is running
+    protected static final String BULK_IMPORT_MARKER = "BULK_IMPORT";
+    // prefix of the markers present while a bulk writer ingests its files, one index after the other
+    protected static final String BULK_INGEST_MARKER = "BULK_INGEST";
+
+    protected boolean bulkImport = false;
+    protected boolean ingestInterrupted = false;
+
+    // unbound term of an id pattern
+    public static final long ANY = 0L;
+    public static final String RDF_TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    protected static final byte PREDICATE_STATISTICS = 'P';
+    protected static final byte CLASS_STATISTICS = 'C';
+    // size probes per range boundary of splitSPO
+    private static final int BISECT_STEPS = 48;
+    // statistics counters: graph id, kind, term id
+    protected ColumnFamilyHandle statisticsHandle;
+    protected long typeId = TermDictionary.UNKNOWN;
+    // held from the existence checks of the triplets counted in the statistics to the write of their batch
+    protected ReentrantLock statisticsLock;
+    // shared by the writers, held exclusively while removeAll clears key ranges
+    protected ReentrantReadWriteLock rangeDeleteLock;
+    // shared with the read sessions
+    protected GraphStoreMetrics metrics;
 
     // a list which will hold the handles for the column families once the db is opened
     final List<ColumnFamilyHandle> cfHandleList = new ArrayList<>();
+    final Map<TripletIndex, ColumnFamilyHandle> indexHandles = new EnumMap<>(TripletIndex.class);
+    final List<RocksObject> cfOptionsList = new ArrayList<>();
+    final List<Long> writeBufferSizes = new ArrayList<>();
+    final Map<TripletIndex, ColumnFamilyOptions> indexCfOptions = new EnumMap<>(TripletIndex.class);
 
     static {
         RocksDB.loadLibrary();
@@ -38,30 +85,181 @@ public class GraphStore implements Closeable {
      * @throws GraphStoreException GraphStoreException
      */
     public GraphStore(String dbDir, GraphStoreOptions options, Boolean readOnly) throws GraphStoreException {
+        this.dbDir = dbDir;
         this.options = options;
-        try (final ColumnFamilyOptions cfOpts = new ColumnFamilyOptions().optimizeUniversalStyleCompaction()) {
-            // list of column family descriptors, first entry must always be default column family
-
-            List<ColumnFamilyDescriptor> cfDescriptors = new ArrayList<>();
-            cfDescriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, cfOpts));
-            cfDescriptors.add(new ColumnFamilyDescriptor("POS".getBytes(), cfOpts));
-            try {
-                options.getDBOptions().setCreateMissingColumnFamilies(true);
-                if(readOnly) {
-                    this.db = RocksDB.openReadOnly(options.getDBOptions(), dbDir, cfDescriptors, cfHandleList);
-                } else {
-                    this.db = RocksDB.open(options.getDBOptions(), dbDir, cfDescriptors, cfHandleList);
-                }
+        this.writeOptions = new WriteOptions();
+        this.metrics = new GraphStoreMetrics(this);
+        this.statisticsLock = new ReentrantLock();
+        this.rangeDeleteLock = new ReentrantReadWriteLock();
+        for(TripletIndex index : TripletIndex.values()) {
+            indexCfOptions.put(index, columnFamilyOptions(options.getIndexOptions(index)));
+        }
+        // list of column family descriptors, first entry must always be default column family
+        List<ColumnFamilyDescriptor> cfDescriptors = new ArrayList<>();
+        cfDescriptors.add(new ColumnFamilyDescriptor(RocksDB.DEFAULT_COLUMN_FAMILY, indexCfOptions.get(TripletIndex.SPO)));
+        cfDescriptors.add(new ColumnFamilyDescriptor("POS".getBytes(), indexCfOptions.get(TripletIndex.POS)));
+        // dictionary lookups are point lookups on whole keys
+        cfDescriptors.add(new ColumnFamilyDescriptor("T2I".getBytes(), columnFamilyOptions(new IndexOptions().setPrefixLength(0))));
+        cfDescriptors.add(new ColumnFamilyDescriptor("I2T".getBytes(), columnFamilyOptions(new IndexOptions().setPrefixLength(0))));
+        cfDescriptors.add(new ColumnFamilyDescriptor("OSP".getBytes(), indexCfOptions.get(TripletIndex.OSP)));
+        UInt64AddOperator addOperator = new UInt64AddOperator();
+        cfOptionsList.add(addOperator);
+        cfDescriptors.add(new ColumnFamilyDescriptor("STATS".getBytes(), columnFamilyOptions(new IndexOptions().setPrefixLength(0)).setMergeOperator(addOperator)));
+        for(ColumnFamilyDescriptor descriptor : cfDescriptors) {
+            writeBufferSizes.add(descriptor.getOptions().writeBufferSize());
+        }
+        try {
+            checkLayout(dbDir);
+            if(!options.isAllowInterruptedImport() && Files.exists(Paths.get(dbDir, BULK_IMPORT_MARKER))) {
+                throw new GraphStoreImportException("A bulk import of the store at " + dbDir + " was interrupted, its content may be incomplete");
+            }
+            ingestInterrupted = ingestMarkers(dbDir).length > 0;
+            if(!options.isAllowInterruptedImport() && ingestInterrupted) {
+                throw new GraphStoreImportException("An SST ingestion into the store at " + dbDir + " was interrupted, its indexes may be out of sync until GraphStore::rebuildIndexes is run");
+            }
+            options.getDBOptions().setCreateMissingColumnFamilies(true);
+            // attach statistics to the DBOptions when enabled
+            options.getStatistics();
+            if(readOnly) {
+                this.db = RocksDB.openReadOnly(options.getDBOptions(), dbDir, cfDescriptors, cfHandleList);
+            } else {
+                this.db = RocksDB.open(options.getDBOptions(), dbDir, cfDescriptors, cfHandleList);
+            }
+        } catch (RocksDBException e) {
+            closeColumnFamilyOptions();
+            if(e.getMessage().contains("LOCK")) {
+                throw new GraphStoreLockException(e);
+            }
+            if(e.getMessage().contains("does not exist")) {
+                throw new GraphStoreNotExistException(e);
+            }
+            throw new GraphStoreException(e);
+        } catch (GraphStoreException e) {
+            closeColumnFamilyOptions();
+            throw e;
+        }
+        indexHandles.put(TripletIndex.SPO, cfHandleList.get(0));
+        indexHandles.put(TripletIndex.POS, cfHandleList.get(1));
+        indexHandles.put(TripletIndex.OSP, cfHandleList.get(4));
+        this.dictionary = new TermDictionary(db, cfHandleList.get(2), cfHandleList.get(3), options.getTermCacheSize());
+        this.statisticsHandle = cfHandleList.get(5);
+        if(options.isEnableGraphStatistics() && !readOnly) {
+            // known from the start, so that class counts never need to look it up
+            Map<String, Long> terms = new HashMap<>();
+            try (WriteBatch batch = new WriteBatch()) {
+                this.typeId = dictionary.getOrCreateId(Triplet.parseNode(RDF_TYPE), batch, terms);
+                db.write(writeOptions, batch);
+                dictionary.publish(terms);
             } catch (RocksDBException e) {
-                if(e.getMessage().contains("LOCK")) {
-                    throw new GraphStoreLockException(e);
-                }
-                if(e.getMessage().contains("does not exist")) {
-                    throw new GraphStoreNotExistException(e);
-                }
+                close();
                 throw new GraphStoreException(e);
             }
+        } else {
+            this.typeId = dictionary.getId(RDF_TYPE);
+        }
+    }
+
+    /**
+     * Build the options of a column family: block based table, bloom filter and a prefix extractor aligned
+     * on term boundaries. The options are kept until the store is closed.
+     *
+     * @param indexOptions IndexOptions
+     * @return ColumnFamilyOptions
+     */
+    protected ColumnFamilyOptions columnFamilyOptions(IndexOptions indexOptions) {
+        BlockBasedTableConfig tableConfig = new BlockBasedTableConfig()
+            .setFormatVersion(5)
+            .setBlockSize(indexOptions.getBlockSize())
+            .setWholeKeyFiltering(indexOptions.isWholeKeyFiltering());
+        if(options.getBlockCache() != null) {
+            // index and filter blocks compete with data blocks in the shared cache, keep them in its high priority pool
+            tableConfig.setBlockCache(options.getBlockCache())
+                .setCacheIndexAndFilterBlocks(true)
+                .setCacheIndexAndFilterBlocksWithHighPriority(true)
+                .setPinL0FilterAndIndexBlocksInCache(true);
+        }
+        if(indexOptions.getBloomBitsPerKey() > 0) {
+            BloomFilter filter = new BloomFilter(indexOptions.getBloomBitsPerKey(), false);
+            tableConfig.setFilterPolicy(filter);
+            cfOptionsList.add(filter);
+        }
+
+        ColumnFamilyOptions cfOptions = new ColumnFamilyOptions()
+            .optimizeUniversalStyleCompaction()
+            .setTableFormatConfig(tableConfig);
+        if(indexOptions.getPrefixLength() > 0) {
+            cfOptions.useFixedLengthPrefixExtractor(extractorLength(indexOptions));
+            cfOptions.setMemtablePrefixBloomSizeRatio(indexOptions.getMemtablePrefixBloomSizeRatio());
+        }
+        cfOptionsList.add(cfOptions);
+        return cfOptions;
+    }
+
+    /**
+     * Length in bytes of the extracted prefixes: the graph id and the leading term ids
+     *
+     * @param indexOptions IndexOptions
+     * @return int, 0 without prefix extractor
+     */
+    protected static int extractorLength(IndexOptions indexOptions) {
+        if(indexOptions.getPrefixLength() == 0) {
+            return 0;
+        }
+        return (1 + indexOptions.getPrefixLength()) * TermDictionary.ID_LENGTH;
+    }
+
+    private void closeColumnFamilyOptions() {
+        for (final RocksObject cfOptions : cfOptionsList) {
+            cfOptions.close();
+        }
+        cfOptionsList.clear();
+    }
+
+    /**
+     * Stores written before the term dictionary have no T2I column family and cannot be read anymore
+     *
+     * @param dbDir String
+     * @throws GraphStoreException GraphStoreException
+     */
+    private static void checkLayout(String dbDir) throws GraphStoreException {
+        List<byte[]> columnFamilies;
+        try (final Options listOptions = new Options()) {
+            columnFamilies = RocksDB.listColumnFamilies(listOptions, dbDir);
+        } catch (RocksDBException e) {
+            // no store yet
+            return;
+        }
+        if(columnFamilies.isEmpty()) {
+            return;
+        }
+        for(byte[] columnFamily : columnFamilies) {
+            if(Arrays.equals(columnFamily, "T2I".getBytes())) {
+                return;
+            }
         }
+        throw new GraphStoreException("The store at " + dbDir + " uses the legacy string layout, it must be reloaded");
+    }
+
+    /**
+     * View sharing the database, the column families and the dictionary of an open store
+     *
+     * @param store GraphStore
+     */
+    protected GraphStore(GraphStore store) {
+        this.db = store.db;
+        this.dbDir = store.dbDir;
+        this.options = store.options;
+        this.dictionary = store.dictionary;
+        this.writeOptions = store.writeOptions;
+        this.cfHandleList.addAll(store.cfHandleList);
+        this.indexHandles.putAll(store.indexHandles);
+        this.indexCfOptions.putAll(store.indexCfOptions);
+        this.writeBufferSizes.addAll(store.writeBufferSizes);
+        this.statisticsHandle = store.statisticsHandle;
+        this.typeId = store.typeId;
+        this.statisticsLock = store.statisticsLock;
+        this.rangeDeleteLock = store.rangeDeleteLock;
+        this.metrics = store.metrics;
     }
 
     /**
@@ -118,6 +316,8 @@ public class GraphStore implements Closeable {
             columnFamilyHandle.close();
         }
         db.close();
+        closeColumnFamilyOptions();
+        writeOptions.close();
     }
 
 
@@ -128,10 +328,139 @@ public class GraphStore implements Closeable {
      */
     public void compact() throws GraphStoreException {
         try {
-            db.compactRange();
+            for (final ColumnFamilyHandle columnFamilyHandle : cfHandleList) {
+                db.compactRange(columnFamilyHandle);
+            }
+        } catch (RocksDBException e) {
+            throw new GraphStoreException(e);
+        }
+    }
+
+    /**
+     * Start a bulk import: the WAL and the auto compactions are disabled and the write buffers enlarged
+     * until endBulkImport is called. A marker file is kept in the store directory meanwhile, so that an
+     * interrupted import is detected when the store is opened again.
+     *
+     * @throws GraphStoreException GraphStoreException
+     */
+    public synchronized void beginBulkImport() throws GraphStoreException {
+        if(bulkImport) {
+            throw new IllegalStateException("A bulk import is already running");
+        }
+        try {
+            Files.write(Paths.get(dbDir, BULK_IMPORT_MARKER), new byte[0], StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            for(final ColumnFamilyHandle columnFamilyHandle : cfHandleList) {
+                db.setOptions(columnFamilyHandle, MutableColumnFamilyOptions.builder()
+                    .setDisableAutoCompactions(true)
+                    .setWriteBufferSize(options.getBulkImportWriteBufferSize())
+                    .build());
+            }
+        } catch (IOException | RocksDBException e) {
+            throw new GraphStoreException(e);
+        }
+        writeOptions.setDisableWAL(true);
+        bulkImport = true;
+    }
+
+    /**
+     * End a bulk import: restore the options, flush the memtables, compact the store and remove the marker
+     *
+     * @throws GraphStoreException GraphStoreException
+     */
+    public synchronized void endBulkImport() throws GraphStoreException {
+        if(!bulkImport) {
+            throw new IllegalStateException("No bulk import is running");
+        }
+        writeOptions.setDisableWAL(false);
+        try (FlushOptions flushOptions = new FlushOptions().setWaitForFlush(true)) {
+            for(int i = 0; i < cfHandleList.size(); i++) {
+                db.setOptions(cfHandleList.get(i), MutableColumnFamilyOptions.builder()
+                    .setDisableAutoCompactions(false)
+                    .setWriteBufferSize(writeBufferSizes.get(i))
+                    .build());
+            }
+            // without WAL, the imported triplets are only durable once flushed
+            db.flush(flushOptions, cfHandleList);
+            compact();
+            Files.deleteIfExists(Paths.get(dbDir, BULK_IMPORT_MARKER));
+        } catch (IOException | RocksDBException e) {
+            throw new GraphStoreException(e);
+        }
+        bulkImport = false;
+    }
+
+    /**
+     * @return boolean
+     */
+    public boolean isBulkImport() {
+        return bulkImport;
+    }
+
+    /**
+     * @return boolean true when the store has been opened after an interrupted bulk import or SST ingestion
+     */
+    public boolean isBulkImportInterrupted() {
+        return ingestInterrupted || !bulkImport && Files.exists(Paths.get(dbDir, BULK_IMPORT_MARKER));
+    }
+
+    /**
+     * @param dbDir String
+     * @return File[] markers of the bulk writers stopped between the ingestion of two indexes
+     */
+    private static File[] ingestMarkers(String dbDir) {
+        File[] markers = new File(dbDir).listFiles((dir, name) -> name.startsWith(BULK_INGEST_MARKER));
+        return markers == null ? new File[0] : markers;
+    }
+
+    /**
+     * Rebuild the POS and OSP indexes, and the statistics, from the SPO index, always ingested first by the
+     * bulk writers. Needed after an interrupted SST ingestion, no writer may run meanwhile.
+     *
+     * @throws GraphStoreException GraphStoreException
+     */
+    public void rebuildIndexes() throws GraphStoreException {
+        TripletIndex spo = TripletIndex.SPO;
+        try (WriteBatch batch = new WriteBatch()) {
+            for(TripletIndex index : TripletIndex.values()) {
+                if(index == spo || !isIndexEnabled(index)) {
+                    continue;
+                }
+                ColumnFamilyHandle handle = indexHandles.get(index);
+                batch.deleteRange(handle, new byte[0], TripletIterator.prefixUpperBound(new byte[0]));
+                commit(batch);
+                batch.clear();
+                int batchCount = 0;
+                try (TripletIterator iterator = queryGSPO()) {
+                    while(iterator.hasNext()) {
+                        byte[] key = iterator.nextKey();
+                        batch.put(handle, index.encode(TermDictionary.readId(key, TripletIndex.GRAPH_OFFSET),
+                            TermDictionary.readId(key, spo.getSubjectOffset()),
+                            TermDictionary.readId(key, spo.getPredicateOffset()),
+                            TermDictionary.readId(key, spo.getObjectOffset())), EMPTY_VALUE);
+                        if(++batchCount >= options.getWriteBatchSize()) {
+                            commit(batch);
+                            batch.clear();
+                            batchCount = 0;
+                        }
+                    }
+                }
+                commit(batch);
+                batch.clear();
+            }
         } catch (RocksDBException e) {
             throw new GraphStoreException(e);
         }
+        if(options.isEnableGraphStatistics()) {
+            rebuildStatistics();
+        }
+        try {
+            for(File marker : ingestMarkers(dbDir)) {
+                Files.deleteIfExists(marker.toPath());
+            }
+        } catch (IOException e) {
+            throw new GraphStoreException(e);
+        }
+        ingestInterrupted = false;
     }
 
     /**
@@ -140,13 +469,12 @@ public class GraphStore implements Closeable {
      * @param triplet Triplet
      */
     public void add(Triplet triplet) {
+        long start = System.nanoTime();
         try {
-            Map<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> indexes = tripletIndexMap(triplet);
-            for(Map.Entry<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> entry : indexes.entrySet()) {
-                db.put(entry.getKey(), entry.getValue().getKey(), entry.getValue().getValue());
-            }
-        } catch (RocksDBException e) {
-            throw new RuntimeException(e);
+            // one batch, so that new terms are written with the triplet
+            write(Collections.singletonList(triplet).iterator());
+        } finally {
+            metrics.record(GraphStoreMetrics.Operation.ADD, start);
         }
     }
 
@@ -156,162 +484,1251 @@ public class GraphStore implements Closeable {
      * @param triplets Collection of Triplet
      */
     public void add(Collection<Triplet> triplets) {
+        add(triplets.iterator());
+    }
+
+    /**
+     * Add a stream of triplets, written in batches
+     *
+     * @param triplets Stream of Triplet
+     * @return long number of triplets written
+     */
+    public long add(Stream<Triplet> triplets) {
+        return add(triplets.iterator());
+    }
+
+    /**
+     * Add triplets, written in batches bounded by GraphStoreOptions::setWriteBatchSize and
+     * GraphStoreOptions::setWriteBatchBytes, so that the triplets never need to be all in memory
+     *
+     * @param triplets Iterator of Triplet
+     * @return long number of triplets written
+     */
+    public long add(Iterator<Triplet> triplets) {
+        long start = System.nanoTime();
         try {
-            WriteBatch batch = new WriteBatch();
-            for(Triplet triplet: triplets) {
-                Map<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> indexes = tripletIndexMap(triplet);
+            return write(triplets);
+        } finally {
+            metrics.record(GraphStoreMetrics.Operation.ADD, start);
+        }
+    }
+
+    /**
+     * @param triplets Iterator of Triplet
+     * @return long number of triplets written
+     */
+    private long write(Iterator<Triplet> triplets) {
+        long count = 0;
+        int batchCount = 0;
+        boolean statistics = options.isEnableGraphStatistics();
+        // SPO keys of the current batch, not visible to lookups yet
+        Set<ByteBuffer> pending = new HashSet<>();
+        // new terms of the current batch
+        Map<String, Long> terms = new HashMap<>();
+        boolean locked = false;
+        try (WriteBatch batch = new WriteBatch()) {
+            while(triplets.hasNext()) {
+                long[] ids = termIds(triplets.next(), batch, terms);
+                count++;
+                if(statistics) {
+                    if(!locked) {
+                        statisticsLock.lock();
+                        locked = true;
+                    }
+                    byte[] key = TripletIndex.SPO.encode(ids[0], ids[1], ids[2], ids[3]);
+                    if(!pending.add(ByteBuffer.wrap(key)) || exists(key)) {
+                        continue;
+                    }
+                    countTriplet(batch, ids, 1);
+                }
+                Map<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> indexes = tripletIndexMap(ids);
                 for(Map.Entry<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> entry : indexes.entrySet()) {
                     batch.put(entry.getKey(), entry.getValue().getKey(), entry.getValue().getValue());
                 }
+                if(++batchCount >= options.getWriteBatchSize() || batch.getDataSize() >= options.getWriteBatchBytes()) {
+                    commit(batch);
+                    dictionary.publish(terms);
+                    batch.clear();
+                    pending.clear();
+                    batchCount = 0;
+                    if(locked) {
+                        statisticsLock.unlock();
+                        locked = false;
+                    }
+                }
+            }
+            if(batchCount > 0 || !terms.isEmpty()) {
+                commit(batch);
+                dictionary.publish(terms);
             }
-            db.write(new WriteOptions(), batch);
         } catch (RocksDBException e) {
             throw new RuntimeException(e);
+        } finally {
+            // terms of a batch that was not written
+            dictionary.discard(terms);
+            if(locked) {
+                statisticsLock.unlock();
+            }
+            metrics.addTriplets(count);
         }
+        return count;
     }
 
     /**
+     * Remove a triplet
+     *
      * @param triplet Triplet
-     * @return Map
      */
-    protected Map<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> tripletIndexMap(Triplet triplet) {
-        Map<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> indexes = new HashMap<>();
-        final byte[] value = (triplet.getSubject().toString() + '|' + triplet.getPredicate().toString() + '|' + triplet.getObject().toString()).getBytes();
-
-        String keySPO = triplet.getSubject().toString() + triplet.getPredicate().toString() + triplet.getObject().toString();
-        indexes.put(cfHandleList.get(0), new AbstractMap.SimpleEntry<>(keySPO.getBytes(), value));
+    public void remove(Triplet triplet) {
+        remove(Collections.singletonList(triplet));
+    }
 
-        if(!options.isDisablePOSIndex()) {
-            String keyPOS = triplet.getPredicate().toString() + triplet.getObject().toString() + triplet.getSubject().toString();
-            indexes.put(cfHandleList.get(1), new AbstractMap.SimpleEntry<>(keyPOS.getBytes(), value));
+    /**
+     * Remove a collection of triplets, deleted in batches
+     *
+     * @param triplets Collection of Triplet
+     */
+    public void remove(Collection<Triplet> triplets) {
+        int batchCount = 0;
+        boolean statistics = options.isEnableGraphStatistics();
+        Set<ByteBuffer> pending = new HashSet<>();
+        boolean locked = false;
+        try (WriteBatch batch = new WriteBatch()) {
+            for(Triplet triplet : triplets) {
+                long[] ids = termIds(triplet, null, null);
+                if(ids == null) {
+                    continue;
+                }
+                if(statistics) {
+                    if(!locked) {
+                        statisticsLock.lock();
+                        locked = true;
+                    }
+                    byte[] key = TripletIndex.SPO.encode(ids[0], ids[1], ids[2], ids[3]);
+                    if(!pending.add(ByteBuffer.wrap(key)) || !exists(key)) {
+                        continue;
+                    }
+                    countTriplet(batch, ids, -1);
+                }
+                for(TripletIndex index : TripletIndex.values()) {
+                    if(isIndexEnabled(index)) {
+                        batch.delete(indexHandles.get(index), index.encode(ids[0], ids[1], ids[2], ids[3]));
+                    }
+                }
+                if(++batchCount >= options.getWriteBatchSize()) {
+                    commit(batch);
+                    batch.clear();
+                    pending.clear();
+                    batchCount = 0;
+                    if(locked) {
+                        statisticsLock.unlock();
+                        locked = false;
+                    }
+                }
+            }
+            if(batchCount > 0) {
+                commit(batch);
+            }
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if(locked) {
+                statisticsLock.unlock();
+            }
         }
+    }
 
-        return indexes;
+    /**
+     * Remove the triplets of the default graph matching a pattern, null terms are unbound
+     *
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long number of triplets removed
+     */
+    public long removeAll(String subject, String predicate, String object) {
+        return removeAll(null, subject, predicate, object);
     }
 
     /**
-     * @param cfHandle ColumnFamilyHandle
-     * @param key1 String
-     * @param key2 String
-     * @param key3 String
-     * @return TripletIterator
+     * Remove the triplets of a graph matching a pattern, null terms are unbound. When the bound terms form a
+     * prefix of the scanned index, the keys read from that index are cleared with range deletes bounded to each
+     * batch, and the other writers wait until the removal is done. Each batch holds the deletes of all the
+     * indexes and statistics of its triplets, so that a failure never leaves the indexes out of sync.
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long number of triplets removed
      */
-    protected TripletIterator query(ColumnFamilyHandle cfHandle, String key1, String key2, String key3) {
-        String prefix = "";
-        if(key1 != null) {
-            prefix += key1;
+    public long removeAll(String graph, String subject, String predicate, String object) {
+        QueryPlan plan = plan(graph, subject, predicate, object);
+        TripletIndex scanned = plan.getIndex();
+        boolean rangeDelete = plan.getFilterOffsets().isEmpty();
+        long count = 0;
+        int batchCount = 0;
+        boolean statistics = options.isEnableGraphStatistics();
+        if(statistics) {
+            // the keys scanned must still exist when their counts are decremented
+            statisticsLock.lock();
         }
-        if(key2 != null) {
-            prefix += key2;
+        if(rangeDelete) {
+            // no key may be written into the ranges between the scan and their deletion
+            rangeDeleteLock.writeLock().lock();
         }
-        if(key3 != null) {
-            prefix += key3;
+        // the iterator reads the state of the store at its creation
+        try (WriteBatch batch = new WriteBatch(); TripletIterator iterator = match(graph, subject, predicate, object)) {
+            byte[] first = null;
+            byte[] last = null;
+            while(iterator.hasNext()) {
+                byte[] key = iterator.nextKey();
+                long g = TermDictionary.readId(key, TripletIndex.GRAPH_OFFSET);
+                long s = TermDictionary.readId(key, scanned.getSubjectOffset());
+                long p = TermDictionary.readId(key, scanned.getPredicateOffset());
+                long o = TermDictionary.readId(key, scanned.getObjectOffset());
+                for(TripletIndex index : TripletIndex.values()) {
+                    if(isIndexEnabled(index) && (index != scanned || !rangeDelete)) {
+                        batch.delete(indexHandles.get(index), index.encode(g, s, p, o));
+                    }
+                }
+                if(statistics) {
+                    countTriplet(batch, new long[] {g, s, p, o}, -1);
+                }
+                if(first == null) {
+                    first = key;
+                }
+                last = key;
+                count++;
+                if(++batchCount >= options.getWriteBatchSize()) {
+                    if(rangeDelete) {
+                        batch.deleteRange(indexHandles.get(scanned), first, successor(last));
+                    }
+                    commit(batch);
+                    batch.clear();
+                    batchCount = 0;
+                    first = null;
+                }
+            }
+            if(batchCount > 0) {
+                if(rangeDelete) {
+                    batch.deleteRange(indexHandles.get(scanned), first, successor(last));
+                }
+                commit(batch);
+            }
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if(rangeDelete) {
+                rangeDeleteLock.writeLock().unlock();
+            }
+            if(statistics) {
+                statisticsLock.unlock();
+            }
         }
-        return new TripletIterator(db.newIterator(cfHandle), prefix);
+        return count;
     }
 
     /**
-     * @param cfHandle ColumnFamilyHandle
-     * @return TripletIterator
+     * @param key byte[]
+     * @return byte[] smallest key greater than the given key
      */
-    protected TripletIterator query(ColumnFamilyHandle cfHandle) {
-        return query(cfHandle, null, null, null);
+    private static byte[] successor(byte[] key) {
+        return Arrays.copyOf(key, key.length + 1);
     }
 
     /**
-     * @param cfHandle ColumnFamilyHandle
-     * @param key1     String
-     * @return TripletIterator
+     * Write a batch, once the range deletes running are done
+     *
+     * @param batch WriteBatch
+     * @throws RocksDBException RocksDBException
      */
-    protected TripletIterator query(ColumnFamilyHandle cfHandle, String key1) {
-        return query(cfHandle, key1, null, null);
+    protected void commit(WriteBatch batch) throws RocksDBException {
+        rangeDeleteLock.readLock().lock();
+        try {
+            db.write(writeOptions, batch);
+        } finally {
+            rangeDeleteLock.readLock().unlock();
+        }
     }
 
     /**
-     * @param cfHandle ColumnFamilyHandle
-     * @param key1 String
-     * @param key2 String
-     * @return TripletIterator
+     * Remove all the triplets of a graph, with a single range delete per index and for the statistics
+     *
+     * @param graph String, null for the default graph
      */
-    protected TripletIterator query(ColumnFamilyHandle cfHandle, String key1, String key2) {
-        return query(cfHandle, key1, key2, null);
+    public void dropGraph(String graph) {
+        long id = graph == null ? TermDictionary.DEFAULT_GRAPH : dictionary.getId(graph);
+        if(graph != null && id == TermDictionary.UNKNOWN) {
+            return;
+        }
+        byte[] begin = encodeKey(id);
+        byte[] end = TripletIterator.prefixUpperBound(begin);
+        boolean statistics = options.isEnableGraphStatistics();
+        if(statistics) {
+            // no count of the graph may be updated after its range is cleared
+            statisticsLock.lock();
+        }
+        // one batch, so that the graph disappears from all the indexes at once
+        try (WriteBatch batch = new WriteBatch()) {
+            for(TripletIndex index : TripletIndex.values()) {
+                if(isIndexEnabled(index)) {
+                    batch.deleteRange(indexHandles.get(index), begin, end);
+                }
+            }
+            batch.deleteRange(statisticsHandle, begin, end);
+            commit(batch);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if(statistics) {
+                statisticsLock.unlock();
+            }
+        }
     }
 
     /**
-     * @return TripletIterator
+     * @param ids long[] graph, subject, predicate and object ids
+     * @return Map
      */
-    public TripletIterator querySPO() {
-        return querySPO(null, null, null);
+    protected Map<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> tripletIndexMap(long[] ids) {
+        Map<ColumnFamilyHandle, Map.Entry<byte[],byte[]>> indexes = new HashMap<>();
+        long graph = ids[0];
+        long subject = ids[1];
+        long predicate = ids[2];
+        long object = ids[3];
+
+        // the key alone encodes the triplet
+        byte[] keySPO = TripletIndex.SPO.encode(graph, subject, predicate, object);
+        indexes.put(indexHandles.get(TripletIndex.SPO), new AbstractMap.SimpleEntry<>(keySPO, EMPTY_VALUE));
+
+        if(!options.isDisablePOSIndex()) {
+            byte[] keyPOS = TripletIndex.POS.encode(graph, subject, predicate, object);
+            indexes.put(indexHandles.get(TripletIndex.POS), new AbstractMap.SimpleEntry<>(keyPOS, EMPTY_VALUE));
+        }
+
+        if(options.isEnableOSPIndex()) {
+            byte[] keyOSP = TripletIndex.OSP.encode(graph, subject, predicate, object);
+            indexes.put(indexHandles.get(TripletIndex.OSP), new AbstractMap.SimpleEntry<>(keyOSP, EMPTY_VALUE));
+        }
+
+        return indexes;
     }
 
     /**
-     * @param subject String
-     * @return TripletIterator
+     * @param key byte[] SPO key
+     * @return boolean
+     * @throws RocksDBException RocksDBException
      */
-    public TripletIterator querySPO(String subject) {
-        return querySPO(subject, null, null);
+    protected boolean exists(byte[] key) throws RocksDBException {
+        ColumnFamilyHandle handle = indexHandles.get(TripletIndex.SPO);
+        // the bloom filter answers most lookups of new triplets
+        return db.keyMayExist(handle, key, null) && db.get(handle, key) != null;
     }
 
     /**
-     * @param subject String
-     * @param predicate String
-     * @return TripletIterator
+     * Add a triplet to the statistics counters, merged with the UInt64AddOperator: no read is needed and
+     * negative deltas wrap around as two's complement
+     *
+     * @param batch WriteBatch
+     * @param ids long[] graph, subject, predicate and object ids
+     * @param delta long
+     * @throws RocksDBException RocksDBException
      */
-    public TripletIterator querySPO(String subject, String predicate) {
-        return querySPO(subject, predicate, null);
+    protected void countTriplet(WriteBatch batch, long[] ids, long delta) throws RocksDBException {
+        byte[] value = encodeCount(delta);
+        batch.merge(statisticsHandle, statisticsKey(ids[0], PREDICATE_STATISTICS, ids[2]), value);
+        if(ids[2] == typeId) {
+            batch.merge(statisticsHandle, statisticsKey(ids[0], CLASS_STATISTICS, ids[3]), value);
+        }
     }
 
     /**
-     * @param subject String
-     * @param predicate String
-     * @param object String
-     * @return TripletIterator
+     * Count a triplet in a map of statistics deltas
+     *
+     * @param counts Map of statistics key to delta
+     * @param key byte[] SPO key
      */
-    public TripletIterator querySPO(String subject, String predicate, String object) {
-        return query(cfHandleList.get(0), subject, predicate, object);
+    protected void countKey(Map<ByteBuffer, Long> counts, byte[] key) {
+        long graph = TermDictionary.readId(key, TripletIndex.GRAPH_OFFSET);
+        long predicate = TermDictionary.readId(key, TripletIndex.SPO.getPredicateOffset());
+        counts.merge(ByteBuffer.wrap(statisticsKey(graph, PREDICATE_STATISTICS, predicate)), 1L, Long::sum);
+        if(predicate == typeId) {
+            long type = TermDictionary.readId(key, TripletIndex.SPO.getObjectOffset());
+            counts.merge(ByteBuffer.wrap(statisticsKey(graph, CLASS_STATISTICS, type)), 1L, Long::sum);
+        }
     }
 
     /**
-     * @return TripletIterator
+     * @param graph long
+     * @param kind byte
+     * @param term long
+     * @return byte[]
      */
-    public TripletIterator queryPOS() {
-        return queryPOS(null, null, null);
+    protected static byte[] statisticsKey(long graph, byte kind, long term) {
+        byte[] key = new byte[2 * TermDictionary.ID_LENGTH + 1];
+        TermDictionary.writeId(key, 0, graph);
+        key[TermDictionary.ID_LENGTH] = kind;
+        TermDictionary.writeId(key, TermDictionary.ID_LENGTH + 1, term);
+        return key;
     }
 
     /**
-     * @param predicate String
-     * @return TripletIterator
+     * @param count long
+     * @return byte[] little-endian, as read by the UInt64AddOperator
      */
-    public TripletIterator queryPOS(String predicate) {
-        return queryPOS(predicate, null, null);
+    protected static byte[] encodeCount(long count) {
+        return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(count).array();
     }
 
     /**
-     * @param predicate String
-     * @param object String
-     * @return TripletIterator
+     * Statistics of the default graph
+     *
+     * @return GraphStatistics
      */
-    public TripletIterator queryPOS(String predicate, String object) {
-        return queryPOS(predicate, object, null);
+    public GraphStatistics statistics() {
+        return statistics(null);
     }
 
     /**
-     * @param predicate String
-     * @param object String
-     * @param subject String
-     * @return TripletIterator
+     * Predicate and rdf:type class counts of a graph, read from the statistics column family in
+     * O(number of predicates and classes). Counters are only maintained when
+     * GraphStoreOptions::setEnableGraphStatistics is set, see also rebuildStatistics.
+     *
+     * @param graph String, null for the default graph
+     * @return GraphStatistics
      */
-    public TripletIterator queryPOS(String predicate, String object, String subject) {
-        if(options.isDisablePOSIndex()) {
-            throw new RuntimeException("POS index has been disabled in options");
+    public GraphStatistics statistics(String graph) {
+        Map<Node, Long> predicates = new LinkedHashMap<>();
+        Map<Node, Long> classes = new LinkedHashMap<>();
+        long id = graph == null ? TermDictionary.DEFAULT_GRAPH : dictionary.getId(graph);
+        if(graph != null && id == TermDictionary.UNKNOWN) {
+            return new GraphStatistics(predicates, classes);
+        }
+        byte[] prefix = encodeKey(id);
+        try (Slice upperBound = new Slice(TripletIterator.prefixUpperBound(prefix));
+             ReadOptions readOptions = newReadOptions().setIterateUpperBound(upperBound);
+             RocksIterator iterator = db.newIterator(statisticsHandle, readOptions)) {
+            for(iterator.seek(prefix); iterator.isValid(); iterator.next()) {
+                byte[] key = iterator.key();
+                long count = ByteBuffer.wrap(iterator.value()).order(ByteOrder.LITTLE_ENDIAN).getLong();
+                if(count == 0) {
+                    continue;
+                }
+                Node term = dictionary.getNode(TermDictionary.readId(key, TermDictionary.ID_LENGTH + 1));
+                (key[TermDictionary.ID_LENGTH] == CLASS_STATISTICS ? classes : predicates).put(term, count);
+            }
         }
-        return query(cfHandleList.get(1), predicate, object, subject);
+        return new GraphStatistics(predicates, classes);
     }
 
     /**
-     * @return SubjectIterator
+     * Recount the statistics of all the graphs from the SPO index, needed when the statistics are enabled
+     * on a store written without them
      */
-    public SubjectIterator subjectIterator() {
-        return new SubjectIterator(querySPO());
+    public void rebuildStatistics() {
+        typeId = dictionary.getId(RDF_TYPE);
+        statisticsLock.lock();
+        try (WriteBatch batch = new WriteBatch(); TripletIterator iterator = queryGSPO()) {
+            batch.deleteRange(statisticsHandle, new byte[0], TripletIterator.prefixUpperBound(new byte[0]));
+            commit(batch);
+            batch.clear();
+            Map<ByteBuffer, Long> counts = new HashMap<>();
+            while(iterator.hasNext()) {
+                countKey(counts, iterator.nextKey());
+            }
+            for(Map.Entry<ByteBuffer, Long> count : counts.entrySet()) {
+                batch.put(statisticsHandle, count.getKey().array(), encodeCount(count.getValue()));
+            }
+            commit(batch);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        } finally {
+            statisticsLock.unlock();
+        }
+    }
+
+    /**
+     * Term ids of a triplet, lazy triplets read from this store are not decoded
+     *
+     * @param triplet Triplet
+     * @param batch WriteBatch receiving the unknown terms, null not to create them
+     * @param terms Map of the new terms of the batch, published once it is written
+     * @return long[] graph, subject, predicate and object ids, null if a term is unknown and not created
+     */
+    protected long[] termIds(Triplet triplet, WriteBatch batch, Map<String, Long> terms) {
+        if(triplet instanceof LazyTriplet && ((LazyTriplet) triplet).getDictionary() == dictionary) {
+            LazyTriplet lazy = (LazyTriplet) triplet;
+            return new long[] {lazy.getGraphId(), lazy.getSubjectId(), lazy.getPredicateId(), lazy.getObjectId()};
+        }
+        long[] ids = new long[4];
+        ids[0] = TermDictionary.DEFAULT_GRAPH;
+        Node[] nodes = {triplet.getGraph(), triplet.getSubject(), triplet.getPredicate(), triplet.getObject()};
+        for(int i = 0; i < nodes.length; i++) {
+            if(nodes[i] == null) {
+                continue;
+            }
+            ids[i] = batch != null ? dictionary.getOrCreateId(nodes[i], batch, terms) : dictionary.getId(nodes[i]);
+            if(ids[i] == TermDictionary.UNKNOWN) {
+                return null;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @param ids term ids, in index order
+     * @return byte[]
+     */
+    protected static byte[] encodeKey(long... ids) {
+        byte[] key = new byte[ids.length * TermDictionary.ID_LENGTH];
+        for(int i = 0; i < ids.length; i++) {
+            TermDictionary.writeId(key, i * TermDictionary.ID_LENGTH, ids[i]);
+        }
+        return key;
+    }
+
+    /**
+     * Build the key prefix of a query: the graph id, then the terms up to the first unbound one. Unknown
+     * terms are encoded as TermDictionary.UNKNOWN, which never matches any key.
+     *
+     * @param graph String, null for the default graph
+     * @param terms String
+     * @return byte[]
+     */
+    protected byte[] encodePrefix(String graph, String... terms) {
+        int length = 0;
+        while(length < terms.length && terms[length] != null) {
+            length++;
+        }
+        long[] ids = new long[1 + length];
+        ids[0] = graph == null ? TermDictionary.DEFAULT_GRAPH : dictionary.getId(graph);
+        if(graph != null && ids[0] == TermDictionary.UNKNOWN) {
+            return encodeKey(TermDictionary.DEFAULT_GRAPH, TermDictionary.UNKNOWN);
+        }
+        for(int i = 0; i < length; i++) {
+            ids[1 + i] = dictionary.getId(terms[i]);
+        }
+        return encodeKey(ids);
+    }
+
+    /**
+     * @param index TripletIndex
+     * @param key1 String
+     * @param key2 String
+     * @param key3 String
+     * @return TripletIterator
+     */
+    protected TripletIterator query(TripletIndex index, String key1, String key2, String key3) {
+        return query(index, null, key1, key2, key3);
+    }
+
+    /**
+     * @param index TripletIndex
+     * @param graph String, null for the default graph
+     * @param key1 String
+     * @param key2 String
+     * @param key3 String
+     * @return TripletIterator
+     */
+    protected TripletIterator query(TripletIndex index, String graph, String key1, String key2, String key3) {
+        return newTripletIterator(index, encodePrefix(graph, key1, key2, key3));
+    }
+
+    /**
+     * Create an iterator bounded to the keys starting with the given prefix
+     *
+     * @param index TripletIndex
+     * @param prefix byte[]
+     * @return TripletIterator
+     */
+    protected TripletIterator newTripletIterator(TripletIndex index, byte[] prefix) {
+        long start = System.nanoTime();
+        Slice upperBound = new Slice(TripletIterator.prefixUpperBound(prefix));
+        ReadOptions readOptions = newReadOptions().setIterateUpperBound(upperBound);
+        // prefix filters only apply to seeks covering the whole extracted prefix
+        readOptions.setTotalOrderSeek(prefix.length < extractorLength(options.getIndexOptions(index)));
+        TripletIterator iterator = new TripletIterator(db.newIterator(indexHandles.get(index), readOptions), prefix, index, dictionary, readOptions, upperBound).setStore(this);
+        metrics.record(GraphStoreMetrics.Operation.QUERY, start);
+        return iterator;
+    }
+
+    /**
+     * @return ReadOptions of a new iterator
+     */
+    protected ReadOptions newReadOptions() {
+        return new ReadOptions();
+    }
+
+    /**
+     * @param index TripletIndex
+     * @return TripletIterator
+     */
+    protected TripletIterator query(TripletIndex index) {
+        return query(index, null, null, null);
+    }
+
+    /**
+     * @param index TripletIndex
+     * @param key1     String
+     * @return TripletIterator
+     */
+    protected TripletIterator query(TripletIndex index, String key1) {
+        return query(index, key1, null, null);
+    }
+
+    /**
+     * @param index TripletIndex
+     * @param key1 String
+     * @param key2 String
+     * @return TripletIterator
+     */
+    protected TripletIterator query(TripletIndex index, String key1, String key2) {
+        return query(index, key1, key2, null);
+    }
+
+    /**
+     * @return TripletIterator
+     */
+    public TripletIterator querySPO() {
+        return querySPO(null, null, null);
+    }
+
+    /**
+     * @param subject String
+     * @return TripletIterator
+     */
+    public TripletIterator querySPO(String subject) {
+        return querySPO(subject, null, null);
+    }
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @return TripletIterator
+     */
+    public TripletIterator querySPO(String subject, String predicate) {
+        return querySPO(subject, predicate, null);
+    }
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    public TripletIterator querySPO(String subject, String predicate, String object) {
+        return query(TripletIndex.SPO, subject, predicate, object);
+    }
+
+    /**
+     * @return TripletIterator
+     */
+    public TripletIterator queryPOS() {
+        return queryPOS(null, null, null);
+    }
+
+    /**
+     * @param predicate String
+     * @return TripletIterator
+     */
+    public TripletIterator queryPOS(String predicate) {
+        return queryPOS(predicate, null, null);
+    }
+
+    /**
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    public TripletIterator queryPOS(String predicate, String object) {
+        return queryPOS(predicate, object, null);
+    }
+
+    /**
+     * @param predicate String
+     * @param object String
+     * @param subject String
+     * @return TripletIterator
+     */
+    public TripletIterator queryPOS(String predicate, String object, String subject) {
+        if(options.isDisablePOSIndex()) {
+            throw new RuntimeException("POS index has been disabled in options");
+        }
+        return query(TripletIndex.POS, predicate, object, subject);
+    }
+
+    /**
+     * @return TripletIterator
+     */
+    public TripletIterator queryOSP() {
+        return queryOSP(null, null, null);
+    }
+
+    /**
+     * @param object String
+     * @return TripletIterator
+     */
+    public TripletIterator queryOSP(String object) {
+        return queryOSP(object, null, null);
+    }
+
+    /**
+     * @param object String
+     * @param subject String
+     * @return TripletIterator
+     */
+    public TripletIterator queryOSP(String object, String subject) {
+        return queryOSP(object, subject, null);
+    }
+
+    /**
+     * @param object String
+     * @param subject String
+     * @param predicate String
+     * @return TripletIterator
+     */
+    public TripletIterator queryOSP(String object, String subject, String predicate) {
+        if(!options.isEnableOSPIndex()) {
+            throw new RuntimeException("OSP index has not been enabled in options");
+        }
+        return query(TripletIndex.OSP, object, subject, predicate);
+    }
+
+    /**
+     * Triplets of all the graphs, sorted by graph
+     *
+     * @return TripletIterator
+     */
+    public TripletIterator queryGSPO() {
+        return newTripletIterator(TripletIndex.SPO, new byte[0]);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @return TripletIterator
+     */
+    public TripletIterator queryGSPO(String graph) {
+        return queryGSPO(graph, null, null, null);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @return TripletIterator
+     */
+    public TripletIterator queryGSPO(String graph, String subject) {
+        return queryGSPO(graph, subject, null, null);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @return TripletIterator
+     */
+    public TripletIterator queryGSPO(String graph, String subject, String predicate) {
+        return queryGSPO(graph, subject, predicate, null);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    public TripletIterator queryGSPO(String graph, String subject, String predicate, String object) {
+        return query(TripletIndex.SPO, graph, subject, predicate, object);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @return TripletIterator
+     */
+    public TripletIterator queryGPOS(String graph) {
+        return queryGPOS(graph, null, null, null);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @param predicate String
+     * @return TripletIterator
+     */
+    public TripletIterator queryGPOS(String graph, String predicate) {
+        return queryGPOS(graph, predicate, null, null);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    public TripletIterator queryGPOS(String graph, String predicate, String object) {
+        return queryGPOS(graph, predicate, object, null);
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @param predicate String
+     * @param object String
+     * @param subject String
+     * @return TripletIterator
+     */
+    public TripletIterator queryGPOS(String graph, String predicate, String object, String subject) {
+        if(options.isDisablePOSIndex()) {
+            throw new RuntimeException("POS index has been disabled in options");
+        }
+        return query(TripletIndex.POS, graph, predicate, object, subject);
+    }
+
+    /**
+     * Match a triple pattern in the default graph, null terms are unbound
+     *
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    public TripletIterator match(String subject, String predicate, String object) {
+        return match(null, subject, predicate, object);
+    }
+
+    /**
+     * Match a triple pattern in a graph, null terms are unbound. The index is chosen by explain().
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return TripletIterator
+     */
+    public TripletIterator match(String graph, String subject, String predicate, String object) {
+        return newTripletIterator(plan(graph, subject, predicate, object));
+    }
+
+    /**
+     * @param plan QueryPlan
+     * @return TripletIterator
+     */
+    protected TripletIterator newTripletIterator(QueryPlan plan) {
+        TripletIterator iterator = newTripletIterator(plan.getIndex(), plan.getPrefix());
+        for(int i = 0; i < plan.getFilterOffsets().size(); i++) {
+            iterator.filter(plan.getFilterOffsets().get(i), plan.getFilterIds().get(i));
+        }
+        return iterator;
+    }
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return QueryPlan
+     */
+    public QueryPlan explain(String subject, String predicate, String object) {
+        return explain(null, subject, predicate, object);
+    }
+
+    /**
+     * Choose the available index with the longest bound prefix for a triple pattern, with an estimate of
+     * the number of keys to scan
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return QueryPlan
+     */
+    public QueryPlan explain(String graph, String subject, String predicate, String object) {
+        QueryPlan plan = plan(graph, subject, predicate, object);
+        return plan.setEstimatedSize(estimateKeys(plan.getIndex(), plan.getPrefix()));
+    }
+
+    /**
+     * Count the triplets of the default graph matching a pattern, null terms are unbound
+     *
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    public long count(String subject, String predicate, String object) {
+        return count(null, subject, predicate, object);
+    }
+
+    /**
+     * Count the triplets of a graph matching a pattern, scanning the keys without decoding any term
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    public long count(String graph, String subject, String predicate, String object) {
+        return match(graph, subject, predicate, object).count();
+    }
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    public long estimateCount(String subject, String predicate, String object) {
+        return estimateCount(null, subject, predicate, object);
+    }
+
+    /**
+     * Estimate the number of triplets matching a pattern without scanning them. Terms not covered by the
+     * index prefix are not taken into account, the estimate is then an upper bound.
+     *
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return long
+     */
+    public long estimateCount(String graph, String subject, String predicate, String object) {
+        return explain(graph, subject, predicate, object).getEstimatedSize();
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return QueryPlan, without estimate
+     */
+    protected QueryPlan plan(String graph, String subject, String predicate, String object) {
+        String[] terms = {graph, subject, predicate, object};
+        long[] ids = new long[terms.length];
+        boolean unknown = false;
+        for(int i = 0; i < terms.length; i++) {
+            if(terms[i] != null) {
+                ids[i] = dictionary.getId(terms[i]);
+                unknown |= ids[i] == TermDictionary.UNKNOWN;
+            }
+        }
+        QueryPlan plan = plan(ids[0], ids[1], ids[2], ids[3]);
+        if(unknown) {
+            // an unknown term cannot match anything, no term has the id of the default graph
+            return new QueryPlan(plan.getIndex(), encodeKey(TermDictionary.DEFAULT_GRAPH, TermDictionary.UNKNOWN), plan.getPrefixLength());
+        }
+        return plan;
+    }
+
+    /**
+     * Match a triple pattern of term ids, ANY terms are unbound
+     *
+     * @param graph long, TermDictionary.DEFAULT_GRAPH for the default graph
+     * @param subject long
+     * @param predicate long
+     * @param object long
+     * @return TripletIterator
+     */
+    public TripletIterator match(long graph, long subject, long predicate, long object) {
+        return newTripletIterator(plan(graph, subject, predicate, object));
+    }
+
+    /**
+     * @param graph long, TermDictionary.DEFAULT_GRAPH for the default graph
+     * @param subject long
+     * @param predicate long
+     * @param object long
+     * @return QueryPlan
+     */
+    public QueryPlan explain(long graph, long subject, long predicate, long object) {
+        QueryPlan plan = plan(graph, subject, predicate, object);
+        return plan.setEstimatedSize(estimateKeys(plan.getIndex(), plan.getPrefix()));
+    }
+
+    /**
+     * Choose the available index with the longest bound prefix, the other bound terms are filtered
+     *
+     * @param graph long, always bound
+     * @param subject long
+     * @param predicate long
+     * @param object long
+     * @return QueryPlan, without estimate
+     */
+    protected QueryPlan plan(long graph, long subject, long predicate, long object) {
+        TripletIndex best = TripletIndex.SPO;
+        int bestLength = -1;
+        for(TripletIndex index : TripletIndex.values()) {
+            if(!isIndexEnabled(index)) {
+                continue;
+            }
+            long[] ids = index.arrange(subject, predicate, object);
+            int length = 0;
+            while(length < ids.length && ids[length] != ANY) {
+                length++;
+            }
+            if(length > bestLength) {
+                best = index;
+                bestLength = length;
+            }
+        }
+
+        long[] ids = best.arrange(subject, predicate, object);
+        long[] prefix = new long[1 + bestLength];
+        prefix[0] = graph;
+        System.arraycopy(ids, 0, prefix, 1, bestLength);
+        QueryPlan plan = new QueryPlan(best, encodeKey(prefix), bestLength);
+        for(int i = bestLength; i < ids.length; i++) {
+            if(ids[i] != ANY) {
+                plan.addFilter((1 + i) * TermDictionary.ID_LENGTH, ids[i]);
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * @param index TripletIndex
+     * @return boolean
+     */
+    protected boolean isIndexEnabled(TripletIndex index) {
+        switch(index) {
+            case POS:
+                return !options.isDisablePOSIndex();
+            case OSP:
+                return options.isEnableOSPIndex();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Approximate number of keys starting with the given prefix: the size of the range in the SST files,
+     * converted with the entries per byte of the overlapping files, plus the memtable entries
+     *
+     * @param index TripletIndex
+     * @param prefix byte[]
+     * @return long
+     */
+    protected long estimateKeys(TripletIndex index, byte[] prefix) {
+        return estimateKeys(index, prefix, TripletIterator.prefixUpperBound(prefix));
+    }
+
+    /**
+     * @param index TripletIndex
+     * @param from byte[] inclusive
+     * @param to byte[] exclusive
+     * @return long approximate number of keys in the range
+     */
+    protected long estimateKeys(TripletIndex index, byte[] from, byte[] to) {
+        ColumnFamilyHandle handle = indexHandles.get(index);
+        try (Slice start = new Slice(from); Slice limit = new Slice(to)) {
+            // getPropertiesOfTablesInRange is broken in the java binding, the file metadata gives the entries
+            List<Range> ranges = Collections.singletonList(new Range(start, limit));
+            long estimate = 0;
+            long rangeSize = db.getApproximateSizes(handle, ranges, SizeApproximationFlag.INCLUDE_FILES)[0];
+            if(rangeSize > 0) {
+                long entries = 0;
+                long tableSize = 0;
+                byte[] name = handle.getName();
+                for(LiveFileMetaData file : db.getLiveFilesMetaData()) {
+                    if(Arrays.equals(name, file.columnFamilyName())
+                        && TripletIterator.compare(file.smallestKey(), to) < 0
+                        && TripletIterator.compare(file.largestKey(), from) >= 0) {
+                        entries += file.numEntries() - file.numDeletions();
+                        tableSize += file.size();
+                    }
+                }
+                estimate = tableSize > 0
+                    ? Math.min(entries, Math.round((double) rangeSize * entries / tableSize))
+                    : rangeSize / TripletIndex.KEY_LENGTH;
+            }
+            return estimate + db.getApproximateMemTableStats(handle, ranges.get(0)).count;
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Usage of the block and row caches, hits and misses are counted when statistics are enabled
+     *
+     * @return CacheStatistics
+     */
+    public CacheStatistics getCacheStatistics() {
+        Cache blockCache = options.getBlockCache();
+        Cache rowCache = options.getRowCache();
+        Statistics statistics = options.getStatistics();
+        return new CacheStatistics(
+            options.getBlockCacheCapacity(),
+            blockCache != null ? blockCache.getUsage() : longProperty("rocksdb.block-cache-usage"),
+            blockCache != null ? blockCache.getPinnedUsage() : longProperty("rocksdb.block-cache-pinned-usage"),
+            statistics != null ? statistics.getTickerCount(TickerType.BLOCK_CACHE_HIT) : 0,
+            statistics != null ? statistics.getTickerCount(TickerType.BLOCK_CACHE_MISS) : 0,
+            options.getRowCacheCapacity(),
+            rowCache != null ? rowCache.getUsage() : 0,
+            statistics != null ? statistics.getTickerCount(TickerType.ROW_CACHE_HIT) : 0,
+            statistics != null ? statistics.getTickerCount(TickerType.ROW_CACHE_MISS) : 0
+        );
+    }
+
+    /**
+     * Operation timings, RocksDB statistics and DB properties of the store, its read sessions included
+     *
+     * @return GraphStoreMetrics
+     */
+    public GraphStoreMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param property String
+     * @return long, summed over the column families
+     */
+    protected long longProperty(String property) {
+        long value = 0;
+        try {
+            for (final ColumnFamilyHandle columnFamilyHandle : cfHandleList) {
+                value += db.getLongProperty(columnFamilyHandle, property);
+            }
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+        return value;
+    }
+
+    /**
+     * Open a read session: all the iterators created from the session read the store as of its creation,
+     * whatever is written meanwhile. The session must be closed to release its snapshot.
+     *
+     * @return ReadSession
+     */
+    public ReadSession newReadSession() {
+        return new ReadSession(this);
+    }
+
+    /**
+     * Create a writer building SST files for the given triplets, ingested into the store on finish
+     *
+     * @return SstBulkWriter
+     */
+    public SstBulkWriter newBulkWriter() {
+        return new SstBulkWriter(this);
+    }
+
+    /**
+     * @return TermDictionary
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return SubjectIterator
+     */
+    public SubjectIterator subjectIterator() {
+        return new SubjectIterator(querySPO());
+    }
+
+    /**
+     * Split the SPO keys of the default graph into contiguous ranges aligned to subject boundaries, so that
+     * the triplets of a subject are never split across two ranges. Each boundary is found by bisecting the key
+     * space between the first and last keys on the approximate sizes of the files and memtables, then moved back
+     * to the start of the subject of the next key: no key is scanned, whatever the shape of the LSM tree. When
+     * the sizes are not known yet, the key space is cut evenly. Ranges are not balanced exactly, and may be empty.
+     *
+     * @param partitions int maximum number of ranges
+     * @return List of boundaries, range i covering the keys from boundary i (inclusive) to boundary i + 1 (exclusive)
+     */
+    protected List<byte[]> splitSPO(int partitions) {
+        byte[] prefix = encodeKey(TermDictionary.DEFAULT_GRAPH);
+        byte[] upperBound = TripletIterator.prefixUpperBound(prefix);
+        int subjectLength = 2 * TermDictionary.ID_LENGTH;
+        TreeSet<byte[]> candidates = new TreeSet<>(TripletIterator::compare);
+        try (ReadOptions readOptions = newReadOptions().setTotalOrderSeek(true);
+             RocksIterator iterator = db.newIterator(indexHandles.get(TripletIndex.SPO), readOptions)) {
+            iterator.seek(prefix);
+            byte[] first = iterator.isValid() ? iterator.key() : null;
+            iterator.seekForPrev(upperBound);
+            if(iterator.isValid() && TripletIterator.compare(iterator.key(), upperBound) >= 0) {
+                iterator.prev();
+            }
+            byte[] last = iterator.isValid() ? iterator.key() : null;
+            if(first != null && last != null && TripletIterator.compare(first, upperBound) < 0
+                && TripletIterator.compare(last, prefix) >= 0 && TripletIterator.compare(first, last) < 0) {
+                byte[] firstSubject = Arrays.copyOf(first, subjectLength);
+                BigInteger low = new BigInteger(1, first);
+                BigInteger high = new BigInteger(1, last);
+                long total = approximateSize(TripletIndex.SPO, first, upperBound);
+                for(int i = 1; i < partitions; i++) {
+                    byte[] middle = total > 0
+                        ? bisect(TripletIndex.SPO, first, low, high, total * i / partitions)
+                        : TripletSpliterator.toKey(low.add(high.subtract(low).multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(partitions))));
+                    iterator.seek(middle);
+                    if(iterator.isValid()) {
+                        byte[] subject = Arrays.copyOf(iterator.key(), subjectLength);
+                        if(TripletIterator.compare(subject, firstSubject) > 0 && TripletIterator.compare(subject, upperBound) < 0) {
+                            candidates.add(subject);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<byte[]> boundaries = new ArrayList<>();
+        boundaries.add(prefix);
+        boundaries.addAll(candidates);
+        boundaries.add(upperBound);
+        return boundaries;
+    }
+
+    /**
+     * Smallest key between low and high such that the range from the given key holds about the given size
+     *
+     * @param index TripletIndex
+     * @param from byte[] start of the measured range
+     * @param low BigInteger
+     * @param high BigInteger
+     * @param size long approximate size in bytes
+     * @return byte[]
+     */
+    private byte[] bisect(TripletIndex index, byte[] from, BigInteger low, BigInteger high, long size) {
+        for(int i = 0; i < BISECT_STEPS && high.subtract(low).compareTo(BigInteger.ONE) > 0; i++) {
+            BigInteger middle = low.add(high).shiftRight(1);
+            if(approximateSize(index, from, TripletSpliterator.toKey(middle)) < size) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return TripletSpliterator.toKey(high);
+    }
+
+    /**
+     * @param index TripletIndex
+     * @param from byte[] inclusive
+     * @param to byte[] exclusive
+     * @return long approximate size in bytes of the range, in the files and memtables
+     */
+    private long approximateSize(TripletIndex index, byte[] from, byte[] to) {
+        try (Slice start = new Slice(from); Slice limit = new Slice(to)) {
+            return db.getApproximateSizes(indexHandles.get(index), Collections.singletonList(new Range(start, limit)),
+                SizeApproximationFlag.INCLUDE_FILES, SizeApproximationFlag.INCLUDE_MEMTABLES)[0];
+        }
+    }
+
+    /**
+     * Scan a range of SPO keys, as returned by splitSPO
+     *
+     * @param from byte[] inclusive
+     * @param to byte[] exclusive
+     * @return TripletIterator
+     */
+    protected TripletIterator querySPO(byte[] from, byte[] to) {
+        long start = System.nanoTime();
+        Slice upperBound = new Slice(to);
+        // ranges span several prefixes of the extractor
+        ReadOptions readOptions = newReadOptions().setIterateUpperBound(upperBound).setTotalOrderSeek(true);
+        byte[] prefix = encodeKey(TermDictionary.DEFAULT_GRAPH);
+        TripletIterator iterator = new TripletIterator(db.newIterator(indexHandles.get(TripletIndex.SPO), readOptions), prefix, TripletIndex.SPO, dictionary, readOptions, upperBound);
+        iterator.seek(from).setLimit(to).setStore(this);
+        metrics.record(GraphStoreMetrics.Operation.QUERY, start);
+        return iterator;
     }
 }
@@ -0,0 +1,354 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import org.rocksdb.HistogramData;
+import org.rocksdb.HistogramType;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.Statistics;
+import org.rocksdb.TickerType;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * GraphStoreMetrics
+ *
+ * Operation counters and latency histograms of a store and its read sessions, with the RocksDB statistics
+ * and DB properties worth polling. Timings are recorded with lock-free adders and power of two buckets, and
+ * every getter reads the current values, so that a JMX or Micrometer bridge can poll them as often as needed.
+ * RocksDB tickers and histograms require GraphStoreOptions::setEnableStatistics.
+ */
+public class GraphStoreMetrics {
+    /**
+     * Timed operations
+     */
+    public enum Operation {
+        // add calls, whatever the number of triplets
+        ADD,
+        // opening an iterator: planning and seeking
+        QUERY,
+        // iterators, from their opening to their close
+        ITERATE,
+        // GraphSerializer calls
+        SERIALIZE
+    }
+
+    private final GraphStore store;
+    private final Map<Operation, Timer> timers = new EnumMap<>(Operation.class);
+    private final LongAdder tripletsAdded = new LongAdder();
+    private final LongAdder tripletsRead = new LongAdder();
+
+    /**
+     * @param store GraphStore
+     */
+    GraphStoreMetrics(GraphStore store) {
+        this.store = store;
+        for(Operation operation : Operation.values()) {
+            timers.put(operation, new Timer());
+        }
+    }
+
+    /**
+     * @param operation Operation
+     * @return Timer
+     */
+    public Timer getTimer(Operation operation) {
+        return timers.get(operation);
+    }
+
+    /**
+     * @param operation Operation
+     * @param start long System::nanoTime at the start of the operation
+     */
+    void record(Operation operation, long start) {
+        timers.get(operation).record(System.nanoTime() - start);
+    }
+
+    /**
+     * @param count long
+     */
+    void addTriplets(long count) {
+        tripletsAdded.add(count);
+    }
+
+    /**
+     * @param count long
+     */
+    void readTriplets(long count) {
+        tripletsRead.add(count);
+    }
+
+    /**
+     * @return long triplets passed to add, duplicates included
+     */
+    public long getTripletsAdded() {
+        return tripletsAdded.sum();
+    }
+
+    /**
+     * @return long triplets returned by the closed iterators
+     */
+    public long getTripletsRead() {
+        return tripletsRead.sum();
+    }
+
+    /**
+     * @param ticker TickerType
+     * @return long, 0 when statistics are disabled
+     */
+    public long getTickerCount(TickerType ticker) {
+        Statistics statistics = store.options.getStatistics();
+        return statistics != null ? statistics.getTickerCount(ticker) : 0;
+    }
+
+    /**
+     * @param histogram HistogramType
+     * @return HistogramData, null when statistics are disabled
+     */
+    public HistogramData getHistogram(HistogramType histogram) {
+        Statistics statistics = store.options.getStatistics();
+        return statistics != null ? statistics.getHistogramData(histogram) : null;
+    }
+
+    /**
+     * @return long microseconds writes were stalled
+     */
+    public long getStallMicros() {
+        return getTickerCount(TickerType.STALL_MICROS);
+    }
+
+    /**
+     * @return long bytes read by point lookups and iterators
+     */
+    public long getBytesRead() {
+        return getTickerCount(TickerType.BYTES_READ) + getTickerCount(TickerType.ITER_BYTES_READ);
+    }
+
+    /**
+     * @return long
+     */
+    public long getBytesWritten() {
+        return getTickerCount(TickerType.BYTES_WRITTEN);
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCacheHits() {
+        return getTickerCount(TickerType.BLOCK_CACHE_HIT);
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCacheMisses() {
+        return getTickerCount(TickerType.BLOCK_CACHE_MISS);
+    }
+
+    /**
+     * @return long bytes compactions still have to rewrite, summed over the column families
+     */
+    public long getPendingCompactionBytes() {
+        return store.longProperty("rocksdb.estimate-pending-compaction-bytes");
+    }
+
+    /**
+     * @return long bytes of the active and immutable memtables
+     */
+    public long getMemTableSize() {
+        return store.longProperty("rocksdb.cur-size-all-mem-tables");
+    }
+
+    /**
+     * @return long bytes of the live SST files
+     */
+    public long getLiveSstSize() {
+        return store.longProperty("rocksdb.live-sst-files-size");
+    }
+
+    /**
+     * @return long estimated number of keys, every triplet being counted once per index
+     */
+    public long getEstimatedKeys() {
+        return store.longProperty("rocksdb.estimate-num-keys");
+    }
+
+    /**
+     * @return long
+     */
+    public long getRunningCompactions() {
+        return dbProperty("rocksdb.num-running-compactions");
+    }
+
+    /**
+     * @return boolean true while writes are stopped by too many pending compactions or memtables
+     */
+    public boolean isWriteStopped() {
+        return dbProperty("rocksdb.is-write-stopped") != 0;
+    }
+
+    /**
+     * @return long bytes per second writes are delayed to, 0 when they are not
+     */
+    public long getDelayedWriteRate() {
+        return dbProperty("rocksdb.actual-delayed-write-rate");
+    }
+
+    /**
+     * @param property String of the whole database
+     * @return long
+     */
+    private long dbProperty(String property) {
+        try {
+            return store.db.getLongProperty(property);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Flat view of the metrics, e.g. graphstore.add.count or graphstore.memtable.bytes, timings in nanoseconds
+     *
+     * @return Map of metric name to value
+     */
+    public Map<String, Number> toMap() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        for(Operation operation : Operation.values()) {
+            Timer timer = timers.get(operation);
+            String prefix = "graphstore." + operation.name().toLowerCase(Locale.ROOT) + ".";
+            metrics.put(prefix + "count", timer.getCount());
+            metrics.put(prefix + "total.nanos", timer.getTotalTime(TimeUnit.NANOSECONDS));
+            metrics.put(prefix + "max.nanos", timer.getMax(TimeUnit.NANOSECONDS));
+            metrics.put(prefix + "p50.nanos", timer.getPercentile(0.5, TimeUnit.NANOSECONDS));
+            metrics.put(prefix + "p99.nanos", timer.getPercentile(0.99, TimeUnit.NANOSECONDS));
+        }
+        metrics.put("graphstore.triplets.added", getTripletsAdded());
+        metrics.put("graphstore.triplets.read", getTripletsRead());
+        metrics.put("graphstore.stall.micros", getStallMicros());
+        metrics.put("graphstore.read.bytes", getBytesRead());
+        metrics.put("graphstore.written.bytes", getBytesWritten());
+        metrics.put("graphstore.block-cache.hits", getBlockCacheHits());
+        metrics.put("graphstore.block-cache.misses", getBlockCacheMisses());
+        metrics.put("graphstore.compaction.pending.bytes", getPendingCompactionBytes());
+        metrics.put("graphstore.compaction.running", getRunningCompactions());
+        metrics.put("graphstore.memtable.bytes", getMemTableSize());
+        metrics.put("graphstore.sst.live.bytes", getLiveSstSize());
+        metrics.put("graphstore.keys.estimated", getEstimatedKeys());
+        metrics.put("graphstore.write.stopped", isWriteStopped() ? 1 : 0);
+        metrics.put("graphstore.write.delayed-rate", getDelayedWriteRate());
+        return metrics;
+    }
+
+    /**
+     * Latency histogram with power of two buckets: bucket i counts the durations from 2^(i-1) to 2^i - 1
+     * nanoseconds, so that percentiles are exact within a factor of two
+     */
+    public static class Timer {
+        private static final int BUCKETS = 64;
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        /**
+         * @param nanos long
+         */
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            count.increment();
+            total.add(nanos);
+            max.accumulate(nanos);
+            buckets.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos)));
+        }
+
+        /**
+         * @return long
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @param unit TimeUnit
+         * @return long
+         */
+        public long getTotalTime(TimeUnit unit) {
+            return unit.convert(total.sum(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * @param unit TimeUnit
+         * @return double, NaN when nothing has been recorded
+         */
+        public double getMean(TimeUnit unit) {
+            long count = getCount();
+            return count == 0 ? Double.NaN : (double) getTotalTime(TimeUnit.NANOSECONDS) / count / unit.toNanos(1);
+        }
+
+        /**
+         * @param unit TimeUnit
+         * @return long
+         */
+        public long getMax(TimeUnit unit) {
+            return unit.convert(max.get(), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Upper bound of the bucket holding the given quantile
+         *
+         * @param quantile double between 0 and 1
+         * @param unit TimeUnit
+         * @return long, 0 when nothing has been recorded
+         */
+        public long getPercentile(double quantile, TimeUnit unit) {
+            long[] counts = getBuckets();
+            long total = 0;
+            for(long bucket : counts) {
+                total += bucket;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for(int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if(seen >= rank && seen > 0) {
+                    long bound = i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                    return unit.convert(Math.min(bound, max.get()), TimeUnit.NANOSECONDS);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return long[] counts of the power of two buckets
+         */
+        public long[] getBuckets() {
+            long[] counts = new long[BUCKETS];
+            for(int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+            }
+            return counts;
+        }
+
+        /**
+         * @return String
+         */
+        @Override
+        public String toString() {
+            return "count=" + getCount() + " mean=" + getMean(TimeUnit.MICROSECONDS) + "us p99=" + getPercentile(0.99, TimeUnit.MICROSECONDS) + "us max=" + getMax(TimeUnit.MICROSECONDS) + "us";
+        }
+    }
+}
@@ -8,14 +8,42 @@
 
 package com.conjecto.graphstore;
 
-import org.rocksdb.DBOptions;
+import org.rocksdb.*;
+
+import java.io.Closeable;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * com.conjecto.graphstore
  */
-public class GraphStoreOptions {
+public class GraphStoreOptions implements Closeable {
     private DBOptions dbOptions = new DBOptions();
     private boolean disablePOSIndex = false;
+    private boolean enableOSPIndex = false;
+    private final Map<TripletIndex, IndexOptions> indexOptions = new EnumMap<>(TripletIndex.class);
+    private Cache blockCache;
+    private long blockCacheCapacity;
+    private boolean ownBlockCache = false;
+    private Cache rowCache;
+    private long rowCacheCapacity;
+    private boolean enableStatistics = false;
+    private boolean enableGraphStatistics = false;
+    private int writeBatchSize = 10000;
+    private long writeBatchBytes = 4 * 1024 * 1024;
+    private long bulkImportWriteBufferSize = 256 * 1024 * 1024;
+    private boolean allowInterruptedImport = false;
+    private int termCacheSize = TermDictionary.DEFAULT_CACHE_SIZE;
+    private Statistics statistics;
+    private boolean ownStatistics = false;
+
+    public GraphStoreOptions() {
+        indexOptions.put(TripletIndex.SPO, new IndexOptions());
+        // predicates alone are not selective, filter on predicate + object
+        indexOptions.put(TripletIndex.POS, new IndexOptions().setPrefixLength(2));
+        indexOptions.put(TripletIndex.OSP, new IndexOptions());
+    }
 
 
     /**
@@ -41,6 +69,285 @@ public class GraphStoreOptions {
         return this;
     }
 
+    /**
+     * @return boolean
+     */
+    public boolean isEnableOSPIndex() {
+        return enableOSPIndex;
+    }
+
+    /**
+     * The OSP index is optional, it must be enabled before the first triplets are added
+     *
+     * @param enableOSPIndex boolean
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setEnableOSPIndex(final boolean enableOSPIndex) {
+        this.enableOSPIndex = enableOSPIndex;
+        return this;
+    }
+
+    /**
+     * @param index TripletIndex
+     * @return IndexOptions
+     */
+    public IndexOptions getIndexOptions(TripletIndex index) {
+        return indexOptions.get(index);
+    }
+
+    /**
+     * @param index TripletIndex
+     * @param options IndexOptions
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setIndexOptions(TripletIndex index, IndexOptions options) {
+        indexOptions.put(index, options);
+        return this;
+    }
+
+    /**
+     * @return Cache, null when each column family uses the RocksDB default block cache
+     */
+    public Cache getBlockCache() {
+        return blockCache;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockCacheCapacity() {
+        return blockCacheCapacity;
+    }
+
+    /**
+     * Share a block cache between all the column families, and possibly between stores
+     *
+     * @param blockCache Cache
+     * @param capacity long capacity the cache was created with
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setBlockCache(final Cache blockCache, final long capacity) {
+        closeBlockCache();
+        this.blockCache = blockCache;
+        this.blockCacheCapacity = capacity;
+        return this;
+    }
+
+    /**
+     * Create a shared LRU block cache. Index and filter blocks are cached in the high priority pool, so that
+     * data blocks do not evict them.
+     *
+     * @param capacity long
+     * @param highPriorityPoolRatio double
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setLRUBlockCache(final long capacity, final double highPriorityPoolRatio) {
+        setBlockCache(new LRUCache(capacity, -1, false, highPriorityPoolRatio), capacity);
+        ownBlockCache = true;
+        return this;
+    }
+
+    /**
+     * Create a shared Clock block cache
+     *
+     * @param capacity long
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setClockBlockCache(final long capacity) {
+        setBlockCache(new ClockCache(capacity), capacity);
+        ownBlockCache = true;
+        return this;
+    }
+
+    /**
+     * @return Cache
+     */
+    public Cache getRowCache() {
+        return rowCache;
+    }
+
+    /**
+     * @return long
+     */
+    public long getRowCacheCapacity() {
+        return rowCacheCapacity;
+    }
+
+    /**
+     * Create a row cache, used by point lookups such as the term dictionary ones
+     *
+     * @param capacity long
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setRowCache(final long capacity) {
+        if(rowCache != null) {
+            rowCache.close();
+        }
+        this.rowCache = new LRUCache(capacity);
+        this.rowCacheCapacity = capacity;
+        this.dbOptions.setRowCache(rowCache);
+        return this;
+    }
+
+    /**
+     * @return boolean
+     */
+    public boolean isEnableStatistics() {
+        return enableStatistics;
+    }
+
+    /**
+     * Collect RocksDB statistics, needed for cache hit ratios. Must be set before the store is opened.
+     *
+     * @param flag boolean
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setEnableStatistics(final boolean flag) {
+        this.enableStatistics = flag;
+        return this;
+    }
+
+    /**
+     * @return boolean
+     */
+    public boolean isEnableGraphStatistics() {
+        return enableGraphStatistics;
+    }
+
+    /**
+     * Maintain the predicate and rdf:type class counts of each graph, see GraphStore::statistics. Every
+     * added or removed triplet is then looked up first, so that duplicates are not counted, and the writes
+     * are serialized from these lookups to the write of their batch so that concurrent writers cannot both count
+     * the same triplet. The lookups of new triplets are mostly answered by the bloom filters.
+     *
+     * @param flag boolean
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setEnableGraphStatistics(final boolean flag) {
+        this.enableGraphStatistics = flag;
+        return this;
+    }
+
+    /**
+     * @return Statistics, null when statistics are disabled
+     */
+    public Statistics getStatistics() {
+        if(enableStatistics && statistics == null) {
+            statistics = new Statistics();
+            ownStatistics = true;
+            dbOptions.setStatistics(statistics);
+        }
+        return enableStatistics ? statistics : null;
+    }
+
+    /**
+     * Collect RocksDB statistics into the given object, possibly shared between stores. It is not closed with
+     * these options. Must be set before the store is opened.
+     *
+     * @param statistics Statistics
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setStatistics(final Statistics statistics) {
+        if(ownStatistics && this.statistics != null) {
+            this.statistics.close();
+        }
+        this.statistics = Objects.requireNonNull(statistics);
+        this.ownStatistics = false;
+        this.enableStatistics = true;
+        dbOptions.setStatistics(statistics);
+        return this;
+    }
+
+    /**
+     * @return int
+     */
+    public int getTermCacheSize() {
+        return termCacheSize;
+    }
+
+    /**
+     * Number of entries of each term cache of the dictionary: term ids, nodes by id and interned nodes
+     *
+     * @param termCacheSize int
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setTermCacheSize(final int termCacheSize) {
+        this.termCacheSize = termCacheSize;
+        return this;
+    }
+
+    /**
+     * @return int
+     */
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    /**
+     * Maximum number of triplets per write batch when adding many triplets
+     *
+     * @param writeBatchSize int
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setWriteBatchSize(final int writeBatchSize) {
+        this.writeBatchSize = writeBatchSize;
+        return this;
+    }
+
+    /**
+     * @return long
+     */
+    public long getWriteBatchBytes() {
+        return writeBatchBytes;
+    }
+
+    /**
+     * Maximum size in bytes of a write batch when adding many triplets
+     *
+     * @param writeBatchBytes long
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setWriteBatchBytes(final long writeBatchBytes) {
+        this.writeBatchBytes = writeBatchBytes;
+        return this;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBulkImportWriteBufferSize() {
+        return bulkImportWriteBufferSize;
+    }
+
+    /**
+     * Write buffer size of the column families during a bulk import
+     *
+     * @param bulkImportWriteBufferSize long
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setBulkImportWriteBufferSize(final long bulkImportWriteBufferSize) {
+        this.bulkImportWriteBufferSize = bulkImportWriteBufferSize;
+        return this;
+    }
+
+    /**
+     * @return boolean
+     */
+    public boolean isAllowInterruptedImport() {
+        return allowInterruptedImport;
+    }
+
+    /**
+     * Open the store even if a bulk import was interrupted, see GraphStore::isBulkImportInterrupted
+     *
+     * @param allowInterruptedImport boolean
+     * @return GraphStoreOptions
+     */
+    public GraphStoreOptions setAllowInterruptedImport(final boolean allowInterruptedImport) {
+        this.allowInterruptedImport = allowInterruptedImport;
+        return this;
+    }
+
     /**
      * @param flag boolean
      * @return GraphStoreOptions
@@ -49,4 +356,26 @@ public class GraphStoreOptions {
         this.dbOptions.setCreateIfMissing(flag);
         return this;
     }
+
+    /**
+     * Release the native objects created by these options, once every store using them is closed
+     */
+    @Override
+    public void close() {
+        closeBlockCache();
+        if(rowCache != null) {
+            rowCache.close();
+        }
+        if(ownStatistics && statistics != null) {
+            statistics.close();
+        }
+        dbOptions.close();
+    }
+
+    private void closeBlockCache() {
+        if(ownBlockCache && blockCache != null) {
+            blockCache.close();
+        }
+        ownBlockCache = false;
+    }
 }
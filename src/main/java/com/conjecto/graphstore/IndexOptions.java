@@ -0,0 +1,112 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+/**
+ * IndexOptions
+ *
+ * Table options of an index column family. The prefix extractor is aligned on term boundaries: a prefix
+ * length of n extracts the graph id and the first n term ids of the keys.
+ */
+public class IndexOptions {
+    private int prefixLength = 1;
+    private double bloomBitsPerKey = 10;
+    private boolean wholeKeyFiltering = true;
+    private long blockSize = 16 * 1024;
+    private double memtablePrefixBloomSizeRatio = 0.05;
+
+    /**
+     * @return int
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * Number of leading terms used by the prefix extractor, 0 disables prefix filtering
+     *
+     * @param prefixLength int
+     * @return IndexOptions
+     */
+    public IndexOptions setPrefixLength(final int prefixLength) {
+        if(prefixLength < 0 || prefixLength > 3) {
+            throw new IllegalArgumentException("Prefix length must be between 0 and 3 terms");
+        }
+        this.prefixLength = prefixLength;
+        return this;
+    }
+
+    /**
+     * @return double
+     */
+    public double getBloomBitsPerKey() {
+        return bloomBitsPerKey;
+    }
+
+    /**
+     * Bits per key of the bloom filter, 0 disables the filter
+     *
+     * @param bloomBitsPerKey double
+     * @return IndexOptions
+     */
+    public IndexOptions setBloomBitsPerKey(final double bloomBitsPerKey) {
+        this.bloomBitsPerKey = bloomBitsPerKey;
+        return this;
+    }
+
+    /**
+     * @return boolean
+     */
+    public boolean isWholeKeyFiltering() {
+        return wholeKeyFiltering;
+    }
+
+    /**
+     * Also add whole keys to the filter, for point lookups of a full triplet
+     *
+     * @param wholeKeyFiltering boolean
+     * @return IndexOptions
+     */
+    public IndexOptions setWholeKeyFiltering(final boolean wholeKeyFiltering) {
+        this.wholeKeyFiltering = wholeKeyFiltering;
+        return this;
+    }
+
+    /**
+     * @return long
+     */
+    public long getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * @param blockSize long
+     * @return IndexOptions
+     */
+    public IndexOptions setBlockSize(final long blockSize) {
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    /**
+     * @return double
+     */
+    public double getMemtablePrefixBloomSizeRatio() {
+        return memtablePrefixBloomSizeRatio;
+    }
+
+    /**
+     * @param memtablePrefixBloomSizeRatio double
+     * @return IndexOptions
+     */
+    public IndexOptions setMemtablePrefixBloomSizeRatio(final double memtablePrefixBloomSizeRatio) {
+        this.memtablePrefixBloomSizeRatio = memtablePrefixBloomSizeRatio;
+        return this;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import org.semanticweb.yars.nx.Node;
+import org.semanticweb.yars.nx.Resource;
+
+import java.util.Arrays;
+
+/**
+ * LazyTriplet
+ *
+ * Triplet backed by the raw key of an index, each term is decoded on first access. Equality and hash code
+ * are computed on the term ids, without decoding: lazy triplets of the same store are equal when they
+ * have the same terms, whatever the index they have been read from.
+ */
+public class LazyTriplet extends Triplet {
+    private final byte[] key;
+    private final TripletIndex index;
+    private final TermDictionary dictionary;
+
+    private Node subject;
+    private Resource predicate;
+    private Node object;
+    private Node graph;
+
+    /**
+     * @param key byte[]
+     * @param index TripletIndex
+     * @param dictionary TermDictionary
+     */
+    public LazyTriplet(byte[] key, TripletIndex index, TermDictionary dictionary) {
+        super(null, null, null, null);
+        this.key = key;
+        this.index = index;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return long
+     */
+    public long getSubjectId() {
+        return TermDictionary.readId(key, index.getSubjectOffset());
+    }
+
+    /**
+     * @return long
+     */
+    public long getPredicateId() {
+        return TermDictionary.readId(key, index.getPredicateOffset());
+    }
+
+    /**
+     * @return long
+     */
+    public long getObjectId() {
+        return TermDictionary.readId(key, index.getObjectOffset());
+    }
+
+    /**
+     * @return long, TermDictionary.DEFAULT_GRAPH for the default graph
+     */
+    public long getGraphId() {
+        return TermDictionary.readId(key, TripletIndex.GRAPH_OFFSET);
+    }
+
+    /**
+     * @return TermDictionary
+     */
+    public TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return Node
+     */
+    @Override
+    public Node getSubject() {
+        if(subject == null) {
+            subject = dictionary.getNode(getSubjectId());
+        }
+        return subject;
+    }
+
+    /**
+     * @return Resource
+     */
+    @Override
+    public Resource getPredicate() {
+        if(predicate == null) {
+            predicate = (Resource) dictionary.getNode(getPredicateId());
+        }
+        return predicate;
+    }
+
+    /**
+     * @return Node
+     */
+    @Override
+    public Node getObject() {
+        if(object == null) {
+            object = dictionary.getNode(getObjectId());
+        }
+        return object;
+    }
+
+    /**
+     * @return Node, null for the default graph
+     */
+    @Override
+    public Node getGraph() {
+        if(graph == null && getGraphId() != TermDictionary.DEFAULT_GRAPH) {
+            graph = dictionary.getNode(getGraphId());
+        }
+        return graph;
+    }
+
+    /**
+     * @param o Object
+     * @return boolean
+     */
+    @Override
+    public boolean equals(Object o) {
+        if(this == o) {
+            return true;
+        }
+        if(!(o instanceof LazyTriplet)) {
+            return false;
+        }
+        LazyTriplet other = (LazyTriplet) o;
+        // ids of different stores are unrelated
+        if(dictionary != other.dictionary) {
+            return false;
+        }
+        if(index == other.index) {
+            return Arrays.equals(key, other.key);
+        }
+        return getSubjectId() == other.getSubjectId() && getPredicateId() == other.getPredicateId()
+            && getObjectId() == other.getObjectId() && getGraphId() == other.getGraphId();
+    }
+
+    /**
+     * @return int
+     */
+    @Override
+    public int hashCode() {
+        int hash = Long.hashCode(getGraphId());
+        hash = 31 * hash + Long.hashCode(getSubjectId());
+        hash = 31 * hash + Long.hashCode(getPredicateId());
+        return 31 * hash + Long.hashCode(getObjectId());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * PartitionedSerializer
+ *
+ * Serializer whose document is a header, the triplets in SPO order and a footer, so that ranges of subjects can
+ * be written independently, see GraphSerializer::setParallelism. The triplets of a subject are never split across
+ * two ranges.
+ */
+public interface PartitionedSerializer extends Serializer {
+    /**
+     * @param out           OutputStream
+     * @param store         GraphReader
+     * @param prefixMapping PrefixMapping
+     * @throws IOException  IOException
+     */
+    void writeHeader(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException;
+
+    /**
+     * Write a range of triplets, without any leading or trailing separator
+     *
+     * @param out           OutputStream
+     * @param store         GraphReader
+     * @param prefixMapping PrefixMapping
+     * @param triplets      Iterator of Triplet, in SPO order
+     * @throws IOException  IOException
+     */
+    void writeTriplets(OutputStream out, GraphReader store, PrefixMapping prefixMapping, Iterator<Triplet> triplets) throws IOException;
+
+    /**
+     * @param out           OutputStream
+     * @param store         GraphReader
+     * @param prefixMapping PrefixMapping
+     * @throws IOException  IOException
+     */
+    void writeFooter(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException;
+
+    /**
+     * @return String written between two non-empty ranges
+     */
+    default String getRangeSeparator() {
+        return "";
+    }
+
+    /**
+     * @return boolean, false if the output does not follow the SPO order and must be written sequentially
+     */
+    default boolean isPartitionable() {
+        return true;
+    }
+}
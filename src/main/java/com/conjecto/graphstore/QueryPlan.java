@@ -0,0 +1,121 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * QueryPlan
+ *
+ * Index chosen for a triple pattern, the key prefix to seek and the bound terms left to filter while scanning.
+ */
+public class QueryPlan {
+    private static final String[] POSITIONS = {"subject", "predicate", "object"};
+
+    private final TripletIndex index;
+    private final byte[] prefix;
+    private final int prefixLength;
+    private final List<Integer> filterOffsets = new ArrayList<>();
+    private final List<Long> filterIds = new ArrayList<>();
+    private long estimatedSize;
+
+    /**
+     * @param index TripletIndex
+     * @param prefix byte[]
+     * @param prefixLength number of bound terms in the prefix
+     */
+    public QueryPlan(TripletIndex index, byte[] prefix, int prefixLength) {
+        this.index = index;
+        this.prefix = prefix;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Add a bound term that is not part of the prefix
+     *
+     * @param offset int
+     * @param id long
+     * @return QueryPlan
+     */
+    public QueryPlan addFilter(int offset, long id) {
+        filterOffsets.add(offset);
+        filterIds.add(id);
+        return this;
+    }
+
+    /**
+     * @return TripletIndex
+     */
+    public TripletIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @return byte[]
+     */
+    public byte[] getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @return int
+     */
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    /**
+     * @return List of key offsets
+     */
+    public List<Integer> getFilterOffsets() {
+        return filterOffsets;
+    }
+
+    /**
+     * @return List of term ids
+     */
+    public List<Long> getFilterIds() {
+        return filterIds;
+    }
+
+    /**
+     * @return long
+     */
+    public long getEstimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * @param estimatedSize long
+     * @return QueryPlan
+     */
+    public QueryPlan setEstimatedSize(long estimatedSize) {
+        this.estimatedSize = estimatedSize;
+        return this;
+    }
+
+    /**
+     * @return String
+     */
+    @Override
+    public String toString() {
+        List<String> filters = new ArrayList<>();
+        for(int offset : filterOffsets) {
+            if(offset == index.getSubjectOffset()) {
+                filters.add(POSITIONS[0]);
+            } else if(offset == index.getPredicateOffset()) {
+                filters.add(POSITIONS[1]);
+            } else {
+                filters.add(POSITIONS[2]);
+            }
+        }
+        return "index=" + index + " prefix=" + prefixLength + " filters=" + filters + " estimated=" + estimatedSize;
+    }
+}
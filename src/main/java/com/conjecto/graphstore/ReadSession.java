@@ -0,0 +1,269 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import com.conjecto.graphstore.iterator.SubjectIterator;
+import org.rocksdb.ReadOptions;
+import org.rocksdb.Snapshot;
+
+import java.io.Closeable;
+import java.util.List;
+
+/**
+ * ReadSession
+ *
+ * Read-only view of a store pinned on a snapshot, shared by all the iterators created from the session.
+ * Terms are never removed from the dictionary, so that term lookups need no snapshot.
+ */
+public class ReadSession implements GraphReader, Closeable {
+    private final View view;
+
+    /**
+     * @param store GraphStore
+     */
+    protected ReadSession(GraphStore store) {
+        this.view = new View(store);
+    }
+
+    /**
+     * @return Snapshot
+     */
+    public Snapshot getSnapshot() {
+        return view.snapshot;
+    }
+
+    /**
+     * Release the snapshot, the store itself stays open
+     */
+    @Override
+    public void close() {
+        view.close();
+    }
+
+    @Override
+    public TripletIterator querySPO() {
+        return view.querySPO();
+    }
+
+    @Override
+    public TripletIterator querySPO(String subject) {
+        return view.querySPO(subject);
+    }
+
+    @Override
+    public TripletIterator querySPO(String subject, String predicate) {
+        return view.querySPO(subject, predicate);
+    }
+
+    @Override
+    public TripletIterator querySPO(String subject, String predicate, String object) {
+        return view.querySPO(subject, predicate, object);
+    }
+
+    @Override
+    public TripletIterator queryPOS() {
+        return view.queryPOS();
+    }
+
+    @Override
+    public TripletIterator queryPOS(String predicate) {
+        return view.queryPOS(predicate);
+    }
+
+    @Override
+    public TripletIterator queryPOS(String predicate, String object) {
+        return view.queryPOS(predicate, object);
+    }
+
+    @Override
+    public TripletIterator queryPOS(String predicate, String object, String subject) {
+        return view.queryPOS(predicate, object, subject);
+    }
+
+    @Override
+    public TripletIterator queryOSP() {
+        return view.queryOSP();
+    }
+
+    @Override
+    public TripletIterator queryOSP(String object) {
+        return view.queryOSP(object);
+    }
+
+    @Override
+    public TripletIterator queryOSP(String object, String subject) {
+        return view.queryOSP(object, subject);
+    }
+
+    @Override
+    public TripletIterator queryOSP(String object, String subject, String predicate) {
+        return view.queryOSP(object, subject, predicate);
+    }
+
+    @Override
+    public TripletIterator queryGSPO() {
+        return view.queryGSPO();
+    }
+
+    @Override
+    public TripletIterator queryGSPO(String graph) {
+        return view.queryGSPO(graph);
+    }
+
+    @Override
+    public TripletIterator queryGSPO(String graph, String subject) {
+        return view.queryGSPO(graph, subject);
+    }
+
+    @Override
+    public TripletIterator queryGSPO(String graph, String subject, String predicate) {
+        return view.queryGSPO(graph, subject, predicate);
+    }
+
+    @Override
+    public TripletIterator queryGSPO(String graph, String subject, String predicate, String object) {
+        return view.queryGSPO(graph, subject, predicate, object);
+    }
+
+    @Override
+    public TripletIterator queryGPOS(String graph) {
+        return view.queryGPOS(graph);
+    }
+
+    @Override
+    public TripletIterator queryGPOS(String graph, String predicate) {
+        return view.queryGPOS(graph, predicate);
+    }
+
+    @Override
+    public TripletIterator queryGPOS(String graph, String predicate, String object) {
+        return view.queryGPOS(graph, predicate, object);
+    }
+
+    @Override
+    public TripletIterator queryGPOS(String graph, String predicate, String object, String subject) {
+        return view.queryGPOS(graph, predicate, object, subject);
+    }
+
+    @Override
+    public TripletIterator match(String subject, String predicate, String object) {
+        return view.match(subject, predicate, object);
+    }
+
+    @Override
+    public TripletIterator match(String graph, String subject, String predicate, String object) {
+        return view.match(graph, subject, predicate, object);
+    }
+
+    @Override
+    public TripletIterator match(long graph, long subject, long predicate, long object) {
+        return view.match(graph, subject, predicate, object);
+    }
+
+    @Override
+    public QueryPlan explain(String subject, String predicate, String object) {
+        return view.explain(subject, predicate, object);
+    }
+
+    @Override
+    public QueryPlan explain(String graph, String subject, String predicate, String object) {
+        return view.explain(graph, subject, predicate, object);
+    }
+
+    @Override
+    public QueryPlan explain(long graph, long subject, long predicate, long object) {
+        return view.explain(graph, subject, predicate, object);
+    }
+
+    @Override
+    public long count(String subject, String predicate, String object) {
+        return view.count(subject, predicate, object);
+    }
+
+    @Override
+    public long count(String graph, String subject, String predicate, String object) {
+        return view.count(graph, subject, predicate, object);
+    }
+
+    @Override
+    public long estimateCount(String subject, String predicate, String object) {
+        return view.estimateCount(subject, predicate, object);
+    }
+
+    @Override
+    public long estimateCount(String graph, String subject, String predicate, String object) {
+        return view.estimateCount(graph, subject, predicate, object);
+    }
+
+    @Override
+    public GraphStatistics statistics() {
+        return view.statistics();
+    }
+
+    @Override
+    public GraphStatistics statistics(String graph) {
+        return view.statistics(graph);
+    }
+
+    @Override
+    public TermDictionary getDictionary() {
+        return view.getDictionary();
+    }
+
+    @Override
+    public SubjectIterator subjectIterator() {
+        return view.subjectIterator();
+    }
+
+    /**
+     * @param partitions int
+     * @return List of boundaries, see GraphStore::splitSPO
+     */
+    List<byte[]> splitSPO(int partitions) {
+        return view.splitSPO(partitions);
+    }
+
+    /**
+     * @param from byte[] inclusive
+     * @param to byte[] exclusive
+     * @return TripletIterator
+     */
+    TripletIterator querySPO(byte[] from, byte[] to) {
+        return view.querySPO(from, to);
+    }
+
+    /**
+     * Store sharing the state of the session store, reading the snapshot
+     */
+    private static class View extends GraphStore {
+        private final Snapshot snapshot;
+        private boolean closed = false;
+
+        View(GraphStore store) {
+            super(store);
+            this.snapshot = db.getSnapshot();
+        }
+
+        @Override
+        protected synchronized ReadOptions newReadOptions() {
+            if(closed) {
+                throw new IllegalStateException("Read session is closed");
+            }
+            return new ReadOptions().setSnapshot(snapshot);
+        }
+
+        @Override
+        public synchronized void close() {
+            if(!closed) {
+                closed = true;
+                db.releaseSnapshot(snapshot);
+            }
+        }
+    }
+}
@@ -17,9 +17,9 @@ import java.io.OutputStream;
 public interface Serializer {
     /**
      * @param out           OutputStream
-     * @param store         GraphStore
+     * @param store         GraphReader
      * @param prefixMapping PrefixMapping
      * @throws IOException  IOException
      */
-    void serialize(OutputStream out, GraphStore store, PrefixMapping prefixMapping) throws IOException;
+    void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException;
 }
@@ -0,0 +1,347 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import org.rocksdb.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * SstBulkWriter
+ *
+ * Bulk load triplets without going through the memtables and the WAL. The index keys are sorted externally:
+ * chunks are sorted in memory and spilled as runs of fixed-width keys, then the runs of each index are merged
+ * into non-overlapping SST files which are ingested into the store.
+ */
+public class SstBulkWriter implements Closeable {
+    private final GraphStore store;
+    private final Path workDir;
+    private final List<TripletIndex> indexes = new ArrayList<>();
+    private final Map<TripletIndex, List<Path>> runs = new EnumMap<>(TripletIndex.class);
+    // statistics deltas of the new triplets, merged once the files are ingested
+    private final Map<ByteBuffer, Long> counts = new HashMap<>();
+
+    private int chunkSize = 500000;
+    private long targetFileSize = 256L * 1024 * 1024;
+
+    private long[] chunk;
+    // new terms of the chunk, written when the chunk is spilled
+    private WriteBatch terms;
+    private final Map<String, Long> pendingTerms = new HashMap<>();
+    private int chunkLength = 0;
+    private long count = 0;
+    private boolean finished = false;
+
+    /**
+     * @param store GraphStore
+     */
+    public SstBulkWriter(GraphStore store) {
+        this.store = store;
+        for(TripletIndex index : TripletIndex.values()) {
+            if(store.isIndexEnabled(index)) {
+                indexes.add(index);
+                runs.put(index, new ArrayList<>());
+            }
+        }
+        try {
+            // inside the store directory, so that SST files are moved instead of copied on ingestion
+            this.workDir = Files.createTempDirectory(Paths.get(store.dbDir), "bulk");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Number of triplets sorted in memory before being spilled to disk
+     *
+     * @param chunkSize int
+     * @return SstBulkWriter
+     */
+    public SstBulkWriter setChunkSize(int chunkSize) {
+        if(chunk != null) {
+            throw new IllegalStateException("Chunk size must be set before adding triplets");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Size after which a new SST file is started
+     *
+     * @param targetFileSize long
+     * @return SstBulkWriter
+     */
+    public SstBulkWriter setTargetFileSize(long targetFileSize) {
+        this.targetFileSize = targetFileSize;
+        return this;
+    }
+
+    /**
+     * @param triplet Triplet
+     */
+    public void add(Triplet triplet) {
+        if(finished) {
+            throw new IllegalStateException("Bulk writer already finished");
+        }
+        if(chunk == null) {
+            chunk = new long[4 * chunkSize];
+            terms = new WriteBatch();
+        }
+        long[] ids = store.termIds(triplet, terms, pendingTerms);
+        System.arraycopy(ids, 0, chunk, chunkLength, ids.length);
+        chunkLength += ids.length;
+        count++;
+        if(chunkLength == chunk.length) {
+            spill();
+        } else if(terms.getDataSize() >= store.options.getWriteBatchBytes()) {
+            writeTerms();
+        }
+    }
+
+    /**
+     * Write and ingest the SST files
+     *
+     * @return long number of triplets added
+     */
+    public long finish() {
+        if(finished) {
+            return count;
+        }
+        finished = true;
+        spill();
+        chunk = null;
+        closeTerms();
+        boolean statistics = store.options.isEnableGraphStatistics();
+        if(statistics) {
+            // the new keys are counted against the keys present until the files are ingested
+            store.statisticsLock.lock();
+        }
+        try (IngestExternalFileOptions ingestOptions = new IngestExternalFileOptions().setMoveFiles(true)) {
+            Map<TripletIndex, List<String>> files = new EnumMap<>(TripletIndex.class);
+            for(TripletIndex index : indexes) {
+                files.put(index, merge(index));
+            }
+            // each index is ingested on its own, SPO first: the marker tells an interrupted ingestion on reopen
+            Path marker = Paths.get(store.dbDir, GraphStore.BULK_INGEST_MARKER + "-" + workDir.getFileName());
+            Files.write(marker, new byte[0], StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            for(TripletIndex index : indexes) {
+                if(!files.get(index).isEmpty()) {
+                    ingest(index, files.get(index), ingestOptions);
+                }
+            }
+            if(!counts.isEmpty()) {
+                try (WriteBatch batch = new WriteBatch()) {
+                    for(Map.Entry<ByteBuffer, Long> entry : counts.entrySet()) {
+                        batch.merge(store.statisticsHandle, entry.getKey().array(), GraphStore.encodeCount(entry.getValue()));
+                    }
+                    store.commit(batch);
+                }
+            }
+            Files.delete(marker);
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if(statistics) {
+                store.statisticsLock.unlock();
+            }
+            close();
+        }
+        return count;
+    }
+
+    /**
+     * Ingest the files of an index, once the range deletes running are done
+     */
+    private void ingest(TripletIndex index, List<String> files, IngestExternalFileOptions ingestOptions) throws RocksDBException {
+        store.rangeDeleteLock.readLock().lock();
+        try {
+            store.db.ingestExternalFile(store.indexHandles.get(index), files, ingestOptions);
+        } finally {
+            store.rangeDeleteLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sort the current chunk for each index and write it as a run
+     */
+    private void spill() {
+        if(chunkLength == 0) {
+            return;
+        }
+        writeTerms();
+        int size = chunkLength / 4;
+        for(TripletIndex index : indexes) {
+            byte[][] keys = new byte[size][];
+            for(int i = 0; i < size; i++) {
+                keys[i] = index.encode(chunk[4 * i], chunk[4 * i + 1], chunk[4 * i + 2], chunk[4 * i + 3]);
+            }
+            Arrays.sort(keys, TripletIterator::compare);
+            Path run = workDir.resolve(index + "-" + runs.get(index).size() + ".run");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run), 1 << 16)) {
+                for(byte[] key : keys) {
+                    out.write(key);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            runs.get(index).add(run);
+        }
+        chunkLength = 0;
+    }
+
+    /**
+     * Write the new terms buffered since the last write, before any key using them is ingested
+     */
+    private void writeTerms() {
+        if(terms.count() == 0) {
+            return;
+        }
+        try {
+            store.commit(terms);
+            store.getDictionary().publish(pendingTerms);
+            terms.clear();
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Merge the sorted runs of an index into SST files, dropping duplicates
+     *
+     * @param index TripletIndex
+     * @return List of SST file paths
+     */
+    private List<String> merge(TripletIndex index) throws IOException, RocksDBException {
+        List<String> files = new ArrayList<>();
+        PriorityQueue<Run> queue = new PriorityQueue<>((a, b) -> TripletIterator.compare(a.key, b.key));
+        boolean statistics = index == TripletIndex.SPO && store.options.isEnableGraphStatistics();
+        try (EnvOptions envOptions = new EnvOptions();
+             Options sstOptions = new Options(store.options.getDBOptions(), store.indexCfOptions.get(index))) {
+            for(Path path : runs.get(index)) {
+                Run run = new Run(path);
+                if(run.advance()) {
+                    queue.add(run);
+                } else {
+                    run.close();
+                }
+            }
+
+            SstFileWriter writer = null;
+            byte[] previous = null;
+            try {
+                while(!queue.isEmpty()) {
+                    Run run = queue.poll();
+                    if(previous == null || !Arrays.equals(previous, run.key)) {
+                        if(writer == null) {
+                            writer = new SstFileWriter(envOptions, sstOptions);
+                            String file = workDir.resolve(index + "-" + files.size() + ".sst").toString();
+                            writer.open(file);
+                            files.add(file);
+                        }
+                        writer.put(run.key, GraphStore.EMPTY_VALUE);
+                        previous = run.key;
+                        if(statistics && !store.exists(run.key)) {
+                            store.countKey(counts, run.key);
+                        }
+                        if(writer.fileSize() >= targetFileSize) {
+                            writer.finish();
+                            writer.close();
+                            writer = null;
+                        }
+                    }
+                    if(run.advance()) {
+                        queue.add(run);
+                    } else {
+                        run.close();
+                    }
+                }
+                if(writer != null) {
+                    writer.finish();
+                }
+            } finally {
+                if(writer != null) {
+                    writer.close();
+                }
+                for(Run run : queue) {
+                    run.close();
+                }
+            }
+        }
+        return files;
+    }
+
+    private void closeTerms() {
+        // terms of a batch that was not written
+        store.getDictionary().discard(pendingTerms);
+        if(terms != null) {
+            terms.close();
+            terms = null;
+        }
+    }
+
+    /**
+     * Remove the temporary files
+     */
+    @Override
+    public void close() {
+        finished = true;
+        chunk = null;
+        closeTerms();
+        if(!Files.exists(workDir)) {
+            return;
+        }
+        try {
+            File[] files = workDir.toFile().listFiles();
+            if(files != null) {
+                for(File file : files) {
+                    Files.deleteIfExists(file.toPath());
+                }
+            }
+            Files.deleteIfExists(workDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sorted run of fixed-width keys
+     */
+    private static class Run implements Closeable {
+        private final DataInputStream input;
+        private byte[] key;
+
+        Run(Path path) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+        }
+
+        boolean advance() throws IOException {
+            byte[] next = new byte[TripletIndex.KEY_LENGTH];
+            try {
+                input.readFully(next);
+            } catch (EOFException e) {
+                return false;
+            }
+            key = next;
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
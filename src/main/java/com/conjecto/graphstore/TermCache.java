@@ -0,0 +1,129 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * TermCache
+ *
+ * Bounded concurrent cache with two generations: entries are added to the young generation, which becomes
+ * the old generation once full, and the previous old generation is dropped. Entries read from the old
+ * generation are promoted, so that frequently used terms survive. Reads take no lock.
+ *
+ * @param <K> key
+ * @param <V> value
+ */
+public class TermCache<K, V> {
+    private final int generationSize;
+    private volatile ConcurrentHashMap<K, V> young;
+    private volatile ConcurrentHashMap<K, V> old;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param size maximum number of entries
+     */
+    public TermCache(int size) {
+        this.generationSize = Math.max(1, size / 2);
+        this.young = new ConcurrentHashMap<>();
+        this.old = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param key K
+     * @return V, null if not cached
+     */
+    public V get(K key) {
+        V value = young.get(key);
+        if(value == null) {
+            value = old.get(key);
+            if(value == null) {
+                misses.increment();
+                return null;
+            }
+            put(key, value);
+        }
+        hits.increment();
+        return value;
+    }
+
+    /**
+     * @param key K
+     * @param value V
+     */
+    public void put(K key, V value) {
+        young.put(key, value);
+        if(young.size() >= generationSize) {
+            rotate();
+        }
+    }
+
+    /**
+     * Return the cached value, or cache the computed one. Concurrent callers may compute the value twice,
+     * only one of them is kept.
+     *
+     * @param key K
+     * @param function Function computing the value
+     * @return V
+     */
+    public V get(K key, Function<K, V> function) {
+        V value = get(key);
+        if(value == null) {
+            value = function.apply(key);
+            V previous = young.putIfAbsent(key, value);
+            if(previous != null) {
+                return previous;
+            }
+            if(young.size() >= generationSize) {
+                rotate();
+            }
+        }
+        return value;
+    }
+
+    private synchronized void rotate() {
+        if(young.size() >= generationSize) {
+            old = young;
+            young = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * @return long
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return long
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return double, NaN before the first lookup
+     */
+    public double getHitRate() {
+        long hitCount = getHitCount();
+        long lookups = hitCount + getMissCount();
+        return lookups == 0 ? Double.NaN : (double) hitCount / lookups;
+    }
+
+    /**
+     * @return int, approximate number of entries
+     */
+    public int size() {
+        return young.size() + old.size();
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import org.rocksdb.*;
+import org.semanticweb.yars.nx.Node;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TermDictionary
+ *
+ * Maps every N-Triples term to a fixed-width integer id (term to id in the T2I column family, id to term
+ * in the I2T column family). Ids are strictly positive, 0 is reserved for unknown terms.
+ */
+public class TermDictionary {
+    public static final int ID_LENGTH = 8;
+    public static final long UNKNOWN = 0L;
+    // the default graph is not a term, no term is ever given its id
+    public static final long DEFAULT_GRAPH = 0L;
+
+    public static final int DEFAULT_CACHE_SIZE = 100000;
+
+    protected final RocksDB db;
+    protected final ColumnFamilyHandle t2iHandle;
+    protected final ColumnFamilyHandle i2tHandle;
+
+    private long lastId;
+    private final TermCache<String, Long> idCache;
+    private final TermCache<Long, Node> nodeCache;
+    // canonical node of each encoded term
+    private final TermCache<String, Node> internCache;
+    // new terms added to batches not written yet, never evicted
+    private final Map<String, UnwrittenTerm> unwrittenTerms = new HashMap<>();
+
+    /**
+     * @param db RocksDB
+     * @param t2iHandle ColumnFamilyHandle
+     * @param i2tHandle ColumnFamilyHandle
+     */
+    public TermDictionary(RocksDB db, ColumnFamilyHandle t2iHandle, ColumnFamilyHandle i2tHandle) {
+        this(db, t2iHandle, i2tHandle, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param db RocksDB
+     * @param t2iHandle ColumnFamilyHandle
+     * @param i2tHandle ColumnFamilyHandle
+     * @param cacheSize int, entries of each term cache
+     */
+    public TermDictionary(RocksDB db, ColumnFamilyHandle t2iHandle, ColumnFamilyHandle i2tHandle, int cacheSize) {
+        this.idCache = new TermCache<>(cacheSize);
+        this.nodeCache = new TermCache<>(cacheSize);
+        this.internCache = new TermCache<>(cacheSize);
+        this.db = db;
+        this.t2iHandle = t2iHandle;
+        this.i2tHandle = i2tHandle;
+        try (RocksIterator iterator = db.newIterator(i2tHandle)) {
+            iterator.seekToLast();
+            lastId = iterator.isValid() ? readId(iterator.key(), 0) : UNKNOWN;
+        }
+    }
+
+    /**
+     * Get the id of a term, UNKNOWN if the term is not in the dictionary
+     *
+     * @param term String
+     * @return long
+     */
+    public long getId(String term) {
+        Long id = idCache.get(term);
+        if(id != null) {
+            return id;
+        }
+        try {
+            byte[] value = db.get(t2iHandle, term.getBytes(StandardCharsets.UTF_8));
+            if(value == null) {
+                return UNKNOWN;
+            }
+            id = readId(value, 0);
+            idCache.put(term, id);
+            return id;
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param node Node
+     * @return long
+     */
+    public long getId(Node node) {
+        return getId(node.toString());
+    }
+
+    /**
+     * Get the id of a term, registering it in the dictionary if needed. The new term is added to the batch
+     * of the caller and to its pending terms, it is known to the other writers only once the batch is written
+     * and published. A term pending in another batch keeps its id and is added to this batch too, so that the
+     * triplets of each batch never refer to a term written by another one.
+     *
+     * @param node Node
+     * @param batch WriteBatch
+     * @param pending Map of the terms added to the batch, owned by the caller
+     * @return long
+     */
+    public long getOrCreateId(Node node, WriteBatch batch, Map<String, Long> pending) {
+        String term = node.toString();
+        Long pendingId = pending.get(term);
+        if(pendingId != null) {
+            return pendingId;
+        }
+        long id = getId(term);
+        if(id != UNKNOWN) {
+            return id;
+        }
+        synchronized (this) {
+            // another writer may have registered the term meanwhile
+            id = getId(term);
+            if(id != UNKNOWN) {
+                return id;
+            }
+            UnwrittenTerm unwritten = unwrittenTerms.get(term);
+            if(unwritten == null) {
+                unwritten = new UnwrittenTerm(++lastId);
+                unwrittenTerms.put(term, unwritten);
+            }
+            id = unwritten.id;
+            byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+            byte[] idBytes = writeId(new byte[ID_LENGTH], 0, id);
+            try {
+                batch.put(t2iHandle, termBytes, idBytes);
+                batch.put(i2tHandle, idBytes, termBytes);
+            } catch (RocksDBException e) {
+                throw new RuntimeException(e);
+            }
+            unwritten.batches++;
+            pending.put(term, id);
+            intern(node);
+            return id;
+        }
+    }
+
+    /**
+     * Publish the pending terms of a batch once it is written
+     *
+     * @param pending Map of the terms added to the batch, cleared
+     */
+    public synchronized void publish(Map<String, Long> pending) {
+        for(Map.Entry<String, Long> entry : pending.entrySet()) {
+            // written, the other batches holding the term write it again with the same id
+            unwrittenTerms.remove(entry.getKey());
+            idCache.put(entry.getKey(), entry.getValue());
+            nodeCache.put(entry.getValue(), internCache.get(entry.getKey(), Triplet::parseNode));
+        }
+        pending.clear();
+    }
+
+    /**
+     * Drop the pending terms of a batch that was not written. Ids are never reused, a term of no other batch
+     * is given a new id.
+     *
+     * @param pending Map of the terms added to the batch, cleared
+     */
+    public synchronized void discard(Map<String, Long> pending) {
+        for(String term : pending.keySet()) {
+            UnwrittenTerm unwritten = unwrittenTerms.get(term);
+            if(unwritten != null && --unwritten.batches == 0) {
+                unwrittenTerms.remove(term);
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Get the node registered under the given id
+     *
+     * @param id long
+     * @return Node
+     */
+    public Node getNode(long id) {
+        Node node = nodeCache.get(id);
+        if(node != null) {
+            return node;
+        }
+        try {
+            byte[] value = db.get(i2tHandle, writeId(new byte[ID_LENGTH], 0, id));
+            if(value == null) {
+                throw new RuntimeException("Unknown term id: " + id);
+            }
+            node = internCache.get(new String(value, StandardCharsets.UTF_8), Triplet::parseNode);
+            nodeCache.put(id, node);
+            return node;
+        } catch (RocksDBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Return the canonical instance of a node, so that parsers do not keep one instance per occurrence
+     * of a term
+     *
+     * @param node Node
+     * @return Node
+     */
+    public Node intern(Node node) {
+        if(node == null) {
+            return null;
+        }
+        return internCache.get(node.toString(), term -> node);
+    }
+
+    /**
+     * @return TermCache of the term to id lookups
+     */
+    public TermCache<String, Long> getIdCache() {
+        return idCache;
+    }
+
+    /**
+     * @return TermCache of the id to node lookups
+     */
+    public TermCache<Long, Node> getNodeCache() {
+        return nodeCache;
+    }
+
+    /**
+     * @return TermCache of the interned nodes
+     */
+    public TermCache<String, Node> getInternCache() {
+        return internCache;
+    }
+
+    /**
+     * @param source byte[]
+     * @param offset int
+     * @return Node
+     */
+    public Node getNode(byte[] source, int offset) {
+        return getNode(readId(source, offset));
+    }
+
+    /**
+     * Write a big-endian id, so that the byte order of keys follows the id order
+     *
+     * @param target byte[]
+     * @param offset int
+     * @param id long
+     * @return byte[]
+     */
+    public static byte[] writeId(byte[] target, int offset, long id) {
+        for(int i = ID_LENGTH - 1; i >= 0; i--) {
+            target[offset + i] = (byte) id;
+            id >>>= 8;
+        }
+        return target;
+    }
+
+    /**
+     * @param source byte[]
+     * @param offset int
+     * @return long
+     */
+    public static long readId(byte[] source, int offset) {
+        long id = 0;
+        for(int i = 0; i < ID_LENGTH; i++) {
+            id = (id << 8) | (source[offset + i] & 0xFF);
+        }
+        return id;
+    }
+
+    /**
+     * Id of a new term, and number of the batches holding it
+     */
+    private static class UnwrittenTerm {
+        private final long id;
+        private int batches;
+
+        private UnwrittenTerm(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -22,6 +22,7 @@ public class Triplet {
     private Node subject;
     private Resource predicate;
     private Node object;
+    private Node graph;
 
     /**
      * @param subject Node
@@ -29,9 +30,20 @@ public class Triplet {
      * @param object Node
      */
     public Triplet(Node subject, Node predicate, Node object) {
+        this(subject, predicate, object, null);
+    }
+
+    /**
+     * @param subject Node
+     * @param predicate Node
+     * @param object Node
+     * @param graph Node, null for the default graph
+     */
+    public Triplet(Node subject, Node predicate, Node object, Node graph) {
         this.subject = subject;
         this.predicate = (Resource) predicate;
         this.object = object;
+        this.graph = graph;
     }
 
     /**
@@ -55,6 +67,13 @@ public class Triplet {
         return object;
     }
 
+    /**
+     * @return Node, null for the default graph
+     */
+    public Node getGraph() {
+        return graph;
+    }
+
     /**
      * @param source String
      * @return Triplet
@@ -91,6 +110,9 @@ public class Triplet {
      */
     @Override
     public String toString() {
-        return subject + " " + predicate + " " + object;
+        if(getGraph() != null) {
+            return getSubject() + " " + getPredicate() + " " + getObject() + " " + getGraph();
+        }
+        return getSubject() + " " + getPredicate() + " " + getObject();
     }
 }
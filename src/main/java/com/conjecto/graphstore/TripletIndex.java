@@ -0,0 +1,98 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+/**
+ * TripletIndex
+ *
+ * Term ordering of an index. Keys start with the id of the graph, followed by the term ids in that order,
+ * so that every index is sorted by graph first (GSPO, GPOS, GOSP). Values are empty.
+ */
+public enum TripletIndex {
+    SPO(0, 1, 2),
+    POS(2, 0, 1),
+    OSP(1, 2, 0);
+
+    public static final int KEY_LENGTH = 4 * TermDictionary.ID_LENGTH;
+    public static final int GRAPH_OFFSET = 0;
+
+    private final int subjectPosition;
+    private final int predicatePosition;
+    private final int objectPosition;
+    private final int subjectOffset;
+    private final int predicateOffset;
+    private final int objectOffset;
+
+    /**
+     * @param subjectPosition int
+     * @param predicatePosition int
+     * @param objectPosition int
+     */
+    TripletIndex(int subjectPosition, int predicatePosition, int objectPosition) {
+        this.subjectPosition = subjectPosition;
+        this.predicatePosition = predicatePosition;
+        this.objectPosition = objectPosition;
+        this.subjectOffset = (1 + subjectPosition) * TermDictionary.ID_LENGTH;
+        this.predicateOffset = (1 + predicatePosition) * TermDictionary.ID_LENGTH;
+        this.objectOffset = (1 + objectPosition) * TermDictionary.ID_LENGTH;
+    }
+
+    /**
+     * @param graph long
+     * @param subject long
+     * @param predicate long
+     * @param object long
+     * @return byte[]
+     */
+    public byte[] encode(long graph, long subject, long predicate, long object) {
+        byte[] key = new byte[KEY_LENGTH];
+        TermDictionary.writeId(key, GRAPH_OFFSET, graph);
+        TermDictionary.writeId(key, subjectOffset, subject);
+        TermDictionary.writeId(key, predicateOffset, predicate);
+        TermDictionary.writeId(key, objectOffset, object);
+        return key;
+    }
+
+    /**
+     * Arrange term ids given in subject, predicate, object order into the index order
+     *
+     * @param subject long
+     * @param predicate long
+     * @param object long
+     * @return long[]
+     */
+    public long[] arrange(long subject, long predicate, long object) {
+        long[] ids = new long[3];
+        ids[subjectPosition] = subject;
+        ids[predicatePosition] = predicate;
+        ids[objectPosition] = object;
+        return ids;
+    }
+
+    /**
+     * @return int
+     */
+    public int getSubjectOffset() {
+        return subjectOffset;
+    }
+
+    /**
+     * @return int
+     */
+    public int getPredicateOffset() {
+        return predicateOffset;
+    }
+
+    /**
+     * @return int
+     */
+    public int getObjectOffset() {
+        return objectOffset;
+    }
+}
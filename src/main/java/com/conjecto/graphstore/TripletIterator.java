@@ -8,10 +8,13 @@
 
 package com.conjecto.graphstore;
 
-import org.rocksdb.RocksDB;
+import org.rocksdb.ReadOptions;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Slice;
 
 import java.io.Closeable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -19,19 +22,59 @@ import java.util.stream.StreamSupport;
 
 /**
  * TripletIterator
+ *
+ * Keys are read into a reused direct buffer, so that scanning allocates nothing but the returned triplets.
  */
 public class TripletIterator implements Iterator<Triplet>, Closeable {
-    protected String prefix;
+    // greater than any key of the store
+    private static final byte[] MAX_KEY = maxKey(64);
+
+    protected byte[] prefix;
     protected RocksIterator iterator;
+    protected TripletIndex index;
+    protected TermDictionary dictionary;
+    protected int[] filterOffsets = new int[0];
+    protected long[] filterIds = new long[0];
+    protected ReadOptions readOptions;
+    protected Slice upperBound;
+    // exclusive bound of the keys returned, in addition to the prefix
+    protected byte[] limit;
+    // store the iterator was opened on, to open the iterators of parallel streams
+    protected GraphStore store;
+    // current key of the RocksDB iterator, loaded once per row
+    protected final ByteBuffer key = ByteBuffer.allocateDirect(TripletIndex.KEY_LENGTH);
+    private boolean loaded = false;
+    private boolean closed = false;
+    // opening time and rows returned, recorded in the store metrics on close
+    private final long openedAt = System.nanoTime();
+    private long rows = 0;
 
     /**
      * @param iterator RocksIterator
-     * @param prefix String
+     * @param prefix byte[]
+     * @param index TripletIndex
+     * @param dictionary TermDictionary
      */
-    public TripletIterator(RocksIterator iterator, String prefix) {
+    public TripletIterator(RocksIterator iterator, byte[] prefix, TripletIndex index, TermDictionary dictionary) {
         this.prefix = prefix;
         this.iterator = iterator;
-        iterator.seek(prefix.getBytes());
+        this.index = index;
+        this.dictionary = dictionary;
+        iterator.seek(prefix);
+    }
+
+    /**
+     * @param iterator RocksIterator
+     * @param prefix byte[]
+     * @param index TripletIndex
+     * @param dictionary TermDictionary
+     * @param readOptions ReadOptions of the iterator, closed with it
+     * @param upperBound Slice used as iterate upper bound, closed with it
+     */
+    public TripletIterator(RocksIterator iterator, byte[] prefix, TripletIndex index, TermDictionary dictionary, ReadOptions readOptions, Slice upperBound) {
+        this(iterator, prefix, index, dictionary);
+        this.readOptions = readOptions;
+        this.upperBound = upperBound;
     }
 
     /**
@@ -39,7 +82,87 @@ public class TripletIterator implements Iterator<Triplet>, Closeable {
      */
     @Override
     public boolean hasNext() {
-        return iterator.isValid() && new String(iterator.key()).startsWith(prefix);
+        while(!closed && iterator.isValid()) {
+            if(!loaded) {
+                // Buffer casts keep the Java 8 signatures
+                ((Buffer) key).clear();
+                iterator.key(key);
+                loaded = true;
+            }
+            if(!startsWith(key, prefix) || (limit != null && compare(key, limit) >= 0)) {
+                return false;
+            }
+            if(accept(key)) {
+                return true;
+            }
+            advance();
+        }
+        return false;
+    }
+
+    private void advance() {
+        iterator.next();
+        loaded = false;
+    }
+
+    /**
+     * Move to the first key at or after the given key, which must start with the prefix
+     *
+     * @param target byte[]
+     * @return TripletIterator
+     */
+    public TripletIterator seek(byte[] target) {
+        iterator.seek(target);
+        loaded = false;
+        return this;
+    }
+
+    /**
+     * Stop before the given key
+     *
+     * @param limit byte[] exclusive
+     * @return TripletIterator
+     */
+    public TripletIterator setLimit(byte[] limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * @param store GraphStore the iterator reads
+     * @return TripletIterator
+     */
+    TripletIterator setStore(GraphStore store) {
+        this.store = store;
+        return this;
+    }
+
+    /**
+     * Only return the triplets having the given term at the given key offset
+     *
+     * @param offset int
+     * @param id long
+     * @return TripletIterator
+     */
+    public TripletIterator filter(int offset, long id) {
+        filterOffsets = Arrays.copyOf(filterOffsets, filterOffsets.length + 1);
+        filterIds = Arrays.copyOf(filterIds, filterIds.length + 1);
+        filterOffsets[filterOffsets.length - 1] = offset;
+        filterIds[filterIds.length - 1] = id;
+        return this;
+    }
+
+    /**
+     * @param key ByteBuffer
+     * @return boolean
+     */
+    protected boolean accept(ByteBuffer key) {
+        for(int i = 0; i < filterOffsets.length; i++) {
+            if(key.getLong(filterOffsets[i]) != filterIds[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -47,11 +170,145 @@ public class TripletIterator implements Iterator<Triplet>, Closeable {
      */
     @Override
     public Triplet next() {
-        Triplet triplet = Triplet.parse(new String(iterator.value()));
-        iterator.next();
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        // the triplet is rebuilt from the key on access, values are empty
+        Triplet triplet = new LazyTriplet(copyKey(), index, dictionary);
+        advance();
+        rows++;
         return triplet;
     }
 
+    /**
+     * Return the next raw key, without decoding its terms
+     *
+     * @return byte[]
+     */
+    public byte[] nextKey() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        byte[] bytes = copyKey();
+        advance();
+        rows++;
+        return bytes;
+    }
+
+    /**
+     * @return byte[] next raw key, without moving, null at the end
+     */
+    byte[] peekKey() {
+        return hasNext() ? copyKey() : null;
+    }
+
+    private byte[] copyKey() {
+        byte[] bytes = new byte[key.limit()];
+        key.get(bytes);
+        ((Buffer) key).rewind();
+        return bytes;
+    }
+
+    /**
+     * Count the remaining triplets without decoding them, and close the iterator
+     *
+     * @return long
+     */
+    public long count() {
+        long count = 0;
+        try {
+            while(hasNext()) {
+                count++;
+                rows++;
+                advance();
+            }
+        } finally {
+            close();
+        }
+        return count;
+    }
+
+    /**
+     * @return TripletIndex
+     */
+    public TripletIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * @param key ByteBuffer, from position 0
+     * @param prefix byte[]
+     * @return boolean
+     */
+    protected static boolean startsWith(ByteBuffer key, byte[] prefix) {
+        if(key.limit() < prefix.length) {
+            return false;
+        }
+        for(int i = 0; i < prefix.length; i++) {
+            if(key.get(i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param key ByteBuffer, from position 0
+     * @param bound byte[]
+     * @return int
+     */
+    protected static int compare(ByteBuffer key, byte[] bound) {
+        int length = Math.min(key.limit(), bound.length);
+        for(int i = 0; i < length; i++) {
+            int diff = (key.get(i) & 0xFF) - (bound[i] & 0xFF);
+            if(diff != 0) {
+                return diff;
+            }
+        }
+        return key.limit() - bound.length;
+    }
+
+    /**
+     * Compare keys as unsigned bytes, the order of the store
+     *
+     * @param a byte[]
+     * @param b byte[]
+     * @return int
+     */
+    public static int compare(byte[] a, byte[] b) {
+        int length = Math.min(a.length, b.length);
+        for(int i = 0; i < length; i++) {
+            int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if(diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * Smallest key greater than all the keys starting with the given prefix
+     *
+     * @param prefix byte[]
+     * @return byte[]
+     */
+    public static byte[] prefixUpperBound(byte[] prefix) {
+        for(int i = prefix.length - 1; i >= 0; i--) {
+            if(prefix[i] != (byte) 0xFF) {
+                byte[] bound = Arrays.copyOf(prefix, i + 1);
+                bound[i]++;
+                return bound;
+            }
+        }
+        return MAX_KEY.clone();
+    }
+
+    private static byte[] maxKey(int length) {
+        byte[] key = new byte[length];
+        Arrays.fill(key, (byte) 0xFF);
+        return key;
+    }
+
     /**
      * @param consumer Consumer
      */
@@ -69,7 +326,18 @@ public class TripletIterator implements Iterator<Triplet>, Closeable {
      *
      */
     public void close() {
+        if(!closed && store != null) {
+            store.metrics.record(GraphStoreMetrics.Operation.ITERATE, openedAt);
+            store.metrics.readTriplets(rows);
+        }
+        closed = true;
         iterator.close();
+        if(readOptions != null) {
+            readOptions.close();
+        }
+        if(upperBound != null) {
+            upperBound.close();
+        }
     }
 
     /**
@@ -82,10 +350,17 @@ public class TripletIterator implements Iterator<Triplet>, Closeable {
     }
 
     /**
+     * Sequential stream of the triplets, splittable by key range when made parallel. Closing the stream
+     * releases the iterators of every split.
+     *
      * @return Stream of Triplet
      */
     public Stream<Triplet> stream() {
-        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED),false);
+        if(store == null) {
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED),false).onClose(this::close);
+        }
+        TripletSpliterator spliterator = new TripletSpliterator(store, this);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
     }
 }
 
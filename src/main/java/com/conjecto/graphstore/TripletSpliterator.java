@@ -0,0 +1,177 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import org.rocksdb.ReadOptions;
+import org.rocksdb.RocksIterator;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * TripletSpliterator
+ *
+ * Spliterator over the keys of a TripletIterator, split by key range: the remaining range is cut at the middle
+ * of its first and last keys, and the prefix half is scanned with its own RocksDB iterator. The iterators of all
+ * the splits are released on close. Splits opened on a ReadSession read its snapshot, splits of a store read its
+ * state when they are first advanced.
+ */
+public class TripletSpliterator implements Spliterator<Triplet>, Closeable {
+    private static final int CHARACTERISTICS = ORDERED | DISTINCT | NONNULL;
+
+    private final GraphStore store;
+    private final TripletIterator root;
+    private final byte[] to;
+    // iterators of all the splits, shared with the root
+    private final Queue<TripletIterator> iterators;
+
+    private TripletIterator iterator;
+    private byte[] from;
+    private long estimate = -1;
+
+    /**
+     * @param store GraphStore the iterator reads
+     * @param iterator TripletIterator
+     */
+    public TripletSpliterator(GraphStore store, TripletIterator iterator) {
+        this.store = store;
+        this.root = iterator;
+        this.iterator = iterator;
+        this.to = iterator.limit != null ? iterator.limit : TripletIterator.prefixUpperBound(iterator.prefix);
+        this.iterators = new ConcurrentLinkedQueue<>();
+        this.iterators.add(iterator);
+    }
+
+    private TripletSpliterator(TripletSpliterator parent, byte[] from, byte[] to, long estimate) {
+        this.store = parent.store;
+        this.root = parent.root;
+        this.from = from;
+        this.to = to;
+        this.estimate = estimate;
+        this.iterators = parent.iterators;
+    }
+
+    /**
+     * Open the iterator of a split on first use, with the prefix and filters of the root
+     */
+    private TripletIterator iterator() {
+        if(iterator == null) {
+            iterator = store.newTripletIterator(root.getIndex(), root.prefix);
+            for(int i = 0; i < root.filterOffsets.length; i++) {
+                iterator.filter(root.filterOffsets[i], root.filterIds[i]);
+            }
+            iterator.seek(from).setLimit(to);
+            iterators.add(iterator);
+        }
+        return iterator;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Triplet> action) {
+        TripletIterator iterator = iterator();
+        if(iterator.hasNext()) {
+            action.accept(iterator.next());
+            return true;
+        }
+        iterator.close();
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Triplet> action) {
+        iterator().forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<Triplet> trySplit() {
+        TripletIterator iterator = iterator();
+        byte[] first = iterator.peekKey();
+        byte[] last = first == null ? null : lastKey();
+        if(last == null) {
+            return null;
+        }
+        BigInteger low = new BigInteger(1, first);
+        BigInteger high = new BigInteger(1, last);
+        if(high.compareTo(low) <= 0) {
+            return null;
+        }
+        // in (first, last], so that both halves hold at least a key
+        byte[] middle = toKey(low.add(high.subtract(low).add(BigInteger.ONE).shiftRight(1)));
+        long half = estimateSize() / 2;
+        TripletSpliterator prefix = new TripletSpliterator(this, first, middle, half);
+        iterator.seek(middle);
+        estimate -= half;
+        return prefix;
+    }
+
+    /**
+     * @return byte[] last key of the range, null if there is none
+     */
+    private byte[] lastKey() {
+        try (ReadOptions readOptions = store.newReadOptions().setTotalOrderSeek(true);
+             RocksIterator last = store.db.newIterator(store.indexHandles.get(root.getIndex()), readOptions)) {
+            last.seekForPrev(to);
+            if(last.isValid() && TripletIterator.compare(last.key(), to) >= 0) {
+                last.prev();
+            }
+            if(!last.isValid()) {
+                return null;
+            }
+            byte[] key = last.key();
+            return TripletIterator.compare(key, root.prefix) >= 0 && key.length == TripletIndex.KEY_LENGTH ? key : null;
+        }
+    }
+
+    /**
+     * @param value BigInteger
+     * @return byte[] key of the index key length holding the value
+     */
+    static byte[] toKey(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        byte[] key = new byte[TripletIndex.KEY_LENGTH];
+        // drop the sign byte, or pad the leading zeros
+        int length = Math.min(bytes.length, key.length);
+        System.arraycopy(bytes, bytes.length - length, key, key.length - length, length);
+        return key;
+    }
+
+    /**
+     * Approximate number of keys left, from the approximate sizes of the root range, halved on each split
+     *
+     * @return long
+     */
+    @Override
+    public long estimateSize() {
+        if(estimate < 0) {
+            byte[] first = iterator().peekKey();
+            estimate = first == null ? 0 : store.estimateKeys(root.getIndex(), first, to);
+        }
+        return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return CHARACTERISTICS;
+    }
+
+    /**
+     * Release the iterators of all the splits
+     */
+    @Override
+    public void close() {
+        TripletIterator iterator;
+        while((iterator = iterators.poll()) != null) {
+            iterator.close();
+        }
+    }
+}
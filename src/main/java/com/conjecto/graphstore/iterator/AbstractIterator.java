@@ -8,17 +8,19 @@
 
 package com.conjecto.graphstore.iterator;
 
+import com.conjecto.graphstore.LazyTriplet;
 import com.conjecto.graphstore.Triplet;
 import org.semanticweb.yars.nx.Node;
 
 import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.NoSuchElementException;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * AbstractIterator
+ *
+ * Groups consecutive triplets sharing a node, streamed off the sorted source with a single triplet of lookahead:
+ * the memory used does not depend on the size of a group. The triplets of a group left unread are skipped when
+ * moving to the next group.
  */
 public abstract class AbstractIterator<T extends AbstractIterator.Iteration> implements Iterator<T> {
     Iterator<Triplet> tripletIterator;
@@ -27,48 +29,98 @@ public abstract class AbstractIterator<T extends AbstractIterator.Iteration> imp
         this.tripletIterator = tripletIterator;
     }
 
-    private T current = null;
+    // next triplet of the source, not yet returned
+    private Triplet head = null;
+    private Group group = null;
     private T next = null;
-    private Set<Triplet> buffer = new LinkedHashSet<>();
-    private final AtomicReference<Node> bufferNode = new AtomicReference<>();
 
     public abstract Node selectNode(Triplet triplet);
 
     public abstract T createIteration(Node node, Iterator<Triplet> iterator);
 
+    /**
+     * Whether two triplets belong to the same group, on term ids when both are read from the store
+     *
+     * @param first Triplet, first of the group
+     * @param triplet Triplet
+     * @return boolean
+     */
+    protected boolean sameGroup(Triplet first, Triplet triplet) {
+        return selectNode(first).equals(selectNode(triplet));
+    }
+
+    /**
+     * @param first Triplet
+     * @param triplet Triplet
+     * @return boolean, true if both triplets are LazyTriplet of the same dictionary
+     */
+    static boolean comparableIds(Triplet first, Triplet triplet) {
+        return first instanceof LazyTriplet && triplet instanceof LazyTriplet
+            && ((LazyTriplet) first).getDictionary() == ((LazyTriplet) triplet).getDictionary();
+    }
+
+    private Triplet peek() {
+        if(head == null && tripletIterator.hasNext()) {
+            head = tripletIterator.next();
+        }
+        return head;
+    }
+
     @Override
     public boolean hasNext() {
-        while(tripletIterator.hasNext()) {
-            Triplet triplet = tripletIterator.next();
-            Node node = selectNode(triplet);
-            if(bufferNode.get() != null && !bufferNode.get().equals(node)) {
-                next = createIteration(bufferNode.get(), buffer.iterator());
-                buffer = new LinkedHashSet<>();
-                buffer.add(triplet);
-                bufferNode.set(node);
-                return true;
+        if(next != null) {
+            return true;
+        }
+        if(group != null) {
+            while(group.hasNext()) {
+                group.next();
             }
-            buffer.add(triplet);
-            bufferNode.set(node);
+            group = null;
         }
-        if(bufferNode.get() != null && buffer.size() > 0) {
-            next = createIteration(bufferNode.get(), buffer.iterator());
-            bufferNode.set(null);
-            return true;
+        Triplet first = peek();
+        if(first == null) {
+            return false;
         }
-        return false;
+        group = new Group(first);
+        next = createIteration(selectNode(first), group);
+        return true;
     }
 
     @Override
     public T next() {
-        if(next != null && !next.equals(current)) {
-            current = next;
-            return current;
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T iteration = next;
+        next = null;
+        return iteration;
+    }
+
+    /**
+     * Triplets of the source until the group boundary
+     */
+    private class Group implements Iterator<Triplet> {
+        private final Triplet first;
+
+        Group(Triplet first) {
+            this.first = first;
         }
-        if(hasNext()) {
-            return next();
+
+        @Override
+        public boolean hasNext() {
+            Triplet triplet = peek();
+            return triplet != null && (triplet == first || sameGroup(first, triplet));
+        }
+
+        @Override
+        public Triplet next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Triplet triplet = head;
+            head = null;
+            return triplet;
         }
-        throw new NoSuchElementException();
     }
 
     static abstract class Iteration {}
@@ -8,6 +8,7 @@
 
 package com.conjecto.graphstore.iterator;
 
+import com.conjecto.graphstore.LazyTriplet;
 import com.conjecto.graphstore.Triplet;
 import org.semanticweb.yars.nx.Node;
 import org.semanticweb.yars.nx.Resource;
@@ -16,6 +17,8 @@ import java.util.Iterator;
 
 /**
  * PredicateIterator
+ *
+ * Groups the triplets of a source sorted by predicate, consecutive predicates are compared on term ids when possible.
  */
 public class PredicateIterator extends AbstractIterator<PredicateIterator.PredicateIteration> {
 
@@ -23,6 +26,14 @@ public class PredicateIterator extends AbstractIterator<PredicateIterator.Predic
         super(tripletIterator);
     }
 
+    @Override
+    protected boolean sameGroup(Triplet first, Triplet triplet) {
+        if(comparableIds(first, triplet)) {
+            return ((LazyTriplet) first).getPredicateId() == ((LazyTriplet) triplet).getPredicateId();
+        }
+        return super.sameGroup(first, triplet);
+    }
+
     @Override
     public Node selectNode(Triplet triplet) {
         return triplet.getPredicate();
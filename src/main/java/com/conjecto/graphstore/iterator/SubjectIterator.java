@@ -8,6 +8,7 @@
 
 package com.conjecto.graphstore.iterator;
 
+import com.conjecto.graphstore.LazyTriplet;
 import com.conjecto.graphstore.Triplet;
 import org.semanticweb.yars.nx.Node;
 
@@ -15,6 +16,8 @@ import java.util.Iterator;
 
 /**
  * SubjectIterator
+ *
+ * Groups the triplets of a source sorted by subject, consecutive subjects are compared on term ids when possible.
  */
 public class SubjectIterator extends AbstractIterator<SubjectIterator.SubjectIteration> {
 
@@ -22,6 +25,14 @@ public class SubjectIterator extends AbstractIterator<SubjectIterator.SubjectIte
         super(tripletIterator);
     }
 
+    @Override
+    protected boolean sameGroup(Triplet first, Triplet triplet) {
+        if(comparableIds(first, triplet)) {
+            return ((LazyTriplet) first).getSubjectId() == ((LazyTriplet) triplet).getSubjectId();
+        }
+        return super.sameGroup(first, triplet);
+    }
+
     @Override
     public Node selectNode(Triplet triplet) {
         return triplet.getSubject();
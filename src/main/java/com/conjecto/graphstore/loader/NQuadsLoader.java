@@ -0,0 +1,46 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.loader;
+
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.Loader;
+import com.conjecto.graphstore.TermDictionary;
+import com.conjecto.graphstore.Triplet;
+import org.semanticweb.yars.nx.parser.NxParser;
+
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * NQuadsLoader
+ *
+ * Statements without graph label are added to the default graph.
+ */
+public class NQuadsLoader implements Loader {
+    @Override
+    public void load(GraphStore store, InputStream input) {
+        NxParser parser = new NxParser();
+        parser.parse(input);
+        Iterator<org.semanticweb.yars.nx.Node[]> nodes = parser.iterator();
+        TermDictionary dictionary = store.getDictionary();
+        store.add(new Iterator<Triplet>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public Triplet next() {
+                org.semanticweb.yars.nx.Node[] nx = nodes.next();
+                return new Triplet(dictionary.intern(nx[0]), dictionary.intern(nx[1]), dictionary.intern(nx[2]),
+                    nx.length > 3 ? dictionary.intern(nx[3]) : null);
+            }
+        });
+    }
+}
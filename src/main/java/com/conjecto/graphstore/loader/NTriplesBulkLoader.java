@@ -0,0 +1,36 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.loader;
+
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.Loader;
+import com.conjecto.graphstore.SstBulkWriter;
+import com.conjecto.graphstore.Triplet;
+import org.semanticweb.yars.nx.parser.NxParser;
+
+import java.io.InputStream;
+
+/**
+ * NTriplesBulkLoader
+ *
+ * Load N-Triples by writing SST files ingested into the store, see SstBulkWriter
+ */
+public class NTriplesBulkLoader implements Loader {
+    @Override
+    public void load(GraphStore store, InputStream input) {
+        NxParser parser = new NxParser();
+        parser.parse(input);
+        try (SstBulkWriter writer = store.newBulkWriter()) {
+            for (org.semanticweb.yars.nx.Node[] nx : parser) {
+                writer.add(new Triplet(nx[0], nx[1], nx[2]));
+            }
+            writer.finish();
+        }
+    }
+}
@@ -10,10 +10,12 @@ package com.conjecto.graphstore.loader;
 
 import com.conjecto.graphstore.GraphStore;
 import com.conjecto.graphstore.Loader;
+import com.conjecto.graphstore.TermDictionary;
 import com.conjecto.graphstore.Triplet;
 import org.semanticweb.yars.nx.parser.NxParser;
 
 import java.io.InputStream;
+import java.util.Iterator;
 
 /**
  * NTriplesLoader
@@ -23,9 +25,20 @@ public class NTriplesLoader implements Loader {
     public void load(GraphStore store, InputStream input) {
         NxParser parser = new NxParser();
         parser.parse(input);
-        for (org.semanticweb.yars.nx.Node[] nx : parser) {
-            Triplet triplet = new Triplet(nx[0], nx[1], nx[2]);
-            store.add(triplet);
-        }
+        // triplets are parsed lazily and written in batches
+        Iterator<org.semanticweb.yars.nx.Node[]> nodes = parser.iterator();
+        TermDictionary dictionary = store.getDictionary();
+        store.add(new Iterator<Triplet>() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public Triplet next() {
+                org.semanticweb.yars.nx.Node[] nx = nodes.next();
+                return new Triplet(dictionary.intern(nx[0]), dictionary.intern(nx[1]), dictionary.intern(nx[2]));
+            }
+        });
     }
 }
@@ -0,0 +1,225 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.loader;
+
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.Loader;
+import com.conjecto.graphstore.TermDictionary;
+import com.conjecto.graphstore.Triplet;
+import org.semanticweb.yars.nx.parser.NxParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * NTriplesParallelLoader
+ *
+ * N-Triples are line based: the input is split into newline-aligned chunks parsed by a pool of workers,
+ * and a single writer adds the parsed triplets to the store through a bounded queue. The reading stops at the
+ * first failure of a worker or of the writer.
+ */
+public class NTriplesParallelLoader implements Loader {
+    private static final List<Triplet> END = new ArrayList<>();
+
+    private final int parallelism;
+    private int chunkSize = 1024 * 1024;
+
+    public NTriplesParallelLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism number of parsing workers
+     */
+    public NTriplesParallelLoader(int parallelism) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Size in bytes of the chunks handed to the workers, grown for longer lines
+     *
+     * @param chunkSize int
+     * @return NTriplesParallelLoader
+     */
+    public NTriplesParallelLoader setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    @Override
+    public void load(GraphStore store, InputStream input) {
+        BlockingQueue<List<Triplet>> queue = new ArrayBlockingQueue<>(2 * parallelism);
+        int slots = 2 * parallelism;
+        Semaphore inFlight = new Semaphore(slots);
+        // first failure of a worker
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        FutureTask<Long> writer = new FutureTask<>(() -> store.add(new QueueIterator(queue)));
+        new Thread(writer, "graphstore-nt-writer").start();
+        try {
+            byte[] buffer = new byte[chunkSize];
+            int length = 0;
+            while(true) {
+                int read = input.read(buffer, length, buffer.length - length);
+                if(read > 0) {
+                    length += read;
+                    if(length < buffer.length) {
+                        continue;
+                    }
+                }
+                int end = read < 0 ? length : lastNewline(buffer, length) + 1;
+                if(end == 0 && read >= 0) {
+                    // a single line larger than the buffer
+                    buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                    continue;
+                }
+                if(end > 0) {
+                    byte[] chunk = Arrays.copyOf(buffer, end);
+                    acquire(inFlight, 1, writer, failure);
+                    workers.execute(() -> {
+                        try {
+                            put(queue, parse(chunk, store.getDictionary()), writer);
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                    System.arraycopy(buffer, end, buffer, 0, length - end);
+                    length -= end;
+                }
+                if(read < 0) {
+                    break;
+                }
+            }
+            // all the chunks are queued once every slot is free
+            acquire(inFlight, slots, writer, failure);
+            put(queue, END, writer);
+            writer.get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            workers.shutdownNow();
+            writer.cancel(true);
+        }
+    }
+
+    /**
+     * @param chunk byte[]
+     * @param dictionary TermDictionary, interning the parsed nodes while they are queued
+     * @return List of Triplet
+     */
+    protected List<Triplet> parse(byte[] chunk, TermDictionary dictionary) {
+        List<Triplet> triplets = new ArrayList<>();
+        NxParser parser = new NxParser();
+        parser.parse(new ByteArrayInputStream(chunk));
+        for (org.semanticweb.yars.nx.Node[] nx : parser) {
+            triplets.add(new Triplet(dictionary.intern(nx[0]), dictionary.intern(nx[1]), dictionary.intern(nx[2])));
+        }
+        return triplets;
+    }
+
+    private static int lastNewline(byte[] buffer, int length) {
+        for(int i = length - 1; i >= 0; i--) {
+            if(buffer[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Wait for free slots, unless a worker has failed or the writer has stopped
+     */
+    private static void acquire(Semaphore semaphore, int permits, Future<Long> writer, AtomicReference<Throwable> failure) throws InterruptedException, ExecutionException {
+        while(!semaphore.tryAcquire(permits, 100, TimeUnit.MILLISECONDS)) {
+            checkFailure(failure);
+            if(writer.isDone()) {
+                writer.get();
+                throw new IllegalStateException("Writer stopped before the end of the input");
+            }
+        }
+        checkFailure(failure);
+    }
+
+    private static void checkFailure(AtomicReference<Throwable> failure) throws ExecutionException {
+        Throwable cause = failure.get();
+        if(cause != null) {
+            throw new ExecutionException(cause);
+        }
+    }
+
+    /**
+     * Wait for room in the queue, unless the writer has stopped
+     */
+    private static void put(BlockingQueue<List<Triplet>> queue, List<Triplet> triplets, Future<Long> writer) throws InterruptedException, ExecutionException {
+        while(!queue.offer(triplets, 100, TimeUnit.MILLISECONDS)) {
+            if(writer.isDone()) {
+                writer.get();
+                throw new IllegalStateException("Writer stopped before the end of the input");
+            }
+        }
+    }
+
+    /**
+     * Triplets of the queued chunks, until the END marker
+     */
+    private static class QueueIterator implements Iterator<Triplet> {
+        private final BlockingQueue<List<Triplet>> queue;
+        private Iterator<Triplet> current = null;
+        private boolean ended = false;
+
+        QueueIterator(BlockingQueue<List<Triplet>> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while(!ended && (current == null || !current.hasNext())) {
+                try {
+                    List<Triplet> triplets = queue.take();
+                    if(triplets == END) {
+                        ended = true;
+                    } else {
+                        current = triplets.iterator();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            return !ended;
+        }
+
+        @Override
+        public Triplet next() {
+            if(!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+    }
+}
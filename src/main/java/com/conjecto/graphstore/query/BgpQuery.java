@@ -0,0 +1,319 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import com.conjecto.graphstore.GraphStatistics;
+import com.conjecto.graphstore.GraphReader;
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.QueryPlan;
+import com.conjecto.graphstore.TermDictionary;
+import com.conjecto.graphstore.TripletIndex;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BgpQuery
+ *
+ * Basic graph pattern: a conjunction of triple patterns sharing variables, evaluated on term ids. Patterns are
+ * joined in a greedy order, from the most selective according to the graph statistics or the index estimates,
+ * preferring patterns connected to the variables already bound. Each pattern is joined with an index nested
+ * loop, or with a merge join when the first two patterns are both sorted on their shared variable.
+ * Solutions are streamed, only the term ids of each row are kept in memory.
+ */
+public class BgpQuery {
+    private static final String RDF_TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    // weight of a bound variable in the cost of a pattern
+    private static final long BOUND_FACTOR = 100;
+
+    private final GraphReader store;
+    private final List<TriplePattern> patterns = new ArrayList<>();
+    private String graph;
+
+    /**
+     * @param store GraphReader, a store or a ReadSession to query a consistent snapshot
+     */
+    public BgpQuery(GraphReader store) {
+        this.store = store;
+    }
+
+    /**
+     * @param graph String, null for the default graph
+     * @return BgpQuery
+     */
+    public BgpQuery setGraph(String graph) {
+        this.graph = graph;
+        return this;
+    }
+
+    /**
+     * Add a triple pattern, terms starting with ? are variables and null terms match anything
+     *
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     * @return BgpQuery
+     */
+    public BgpQuery add(String subject, String predicate, String object) {
+        return add(new TriplePattern(subject, predicate, object));
+    }
+
+    /**
+     * @param pattern TriplePattern
+     * @return BgpQuery
+     */
+    public BgpQuery add(TriplePattern pattern) {
+        patterns.add(pattern);
+        return this;
+    }
+
+    /**
+     * @return List of variables, in order of appearance
+     */
+    public List<String> getVariables() {
+        return new ArrayList<>(slots().keySet());
+    }
+
+    /**
+     * Describe the join order and the scan of each pattern
+     *
+     * @return String
+     */
+    public String explain() {
+        Map<String, Integer> slots = slots();
+        long graphId = graphId();
+        List<Step> steps = graph != null && graphId == TermDictionary.UNKNOWN ? null : order(steps(slots, graphId), slots.size());
+        if(steps == null) {
+            return "empty: unknown term";
+        }
+        StringBuilder sb = new StringBuilder();
+        int merged = mergeSlot(steps);
+        for(int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            String join = i == 0 ? "scan" : (i == 1 && merged >= 0 ? "merge join" : "nested loop join");
+            sb.append(join).append(' ').append(step.pattern)
+                .append(" index=").append(step.plan.getIndex())
+                .append(" estimated=").append(step.estimate)
+                .append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return BindingIterator, to be closed if not exhausted
+     */
+    public BindingIterator execute() {
+        Map<String, Integer> slots = slots();
+        long graphId = graphId();
+        List<Step> steps = graph != null && graphId == TermDictionary.UNKNOWN ? null : order(steps(slots, graphId), slots.size());
+        if(steps == null || steps.isEmpty()) {
+            return new BindingIterator(empty(), slots, store.getDictionary());
+        }
+        long[] input = emptyRow(slots.size());
+        RowIterator rows;
+        int start;
+        int merged = mergeSlot(steps);
+        if(merged >= 0) {
+            rows = new MergeJoin(new PatternScan(store, graphId, steps.get(0), input), new PatternScan(store, graphId, steps.get(1), input), merged);
+            start = 2;
+        } else {
+            rows = new PatternScan(store, graphId, steps.get(0), input);
+            start = 1;
+        }
+        for(int i = start; i < steps.size(); i++) {
+            rows = new NestedLoopJoin(store, graphId, rows, steps.get(i));
+        }
+        return new BindingIterator(rows, slots, store.getDictionary());
+    }
+
+    /**
+     * @return long, UNKNOWN if the graph does not exist, the default graph having the same id
+     */
+    private long graphId() {
+        return graph == null ? TermDictionary.DEFAULT_GRAPH : store.getDictionary().getId(graph);
+    }
+
+    /**
+     * Number the variables in order of appearance
+     *
+     * @return Map of variable to slot
+     */
+    private Map<String, Integer> slots() {
+        Map<String, Integer> slots = new LinkedHashMap<>();
+        for(TriplePattern pattern : patterns) {
+            for(String term : pattern.terms()) {
+                if(TriplePattern.isVariable(term) && !slots.containsKey(term)) {
+                    slots.put(term, slots.size());
+                }
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Resolve the constants of each pattern
+     *
+     * @return List of Step, null if a constant is unknown
+     */
+    private List<Step> steps(Map<String, Integer> slots, long graphId) {
+        TermDictionary dictionary = store.getDictionary();
+        GraphStatistics statistics = store.statistics(graph);
+        List<Step> steps = new ArrayList<>();
+        for(TriplePattern pattern : patterns) {
+            String[] terms = pattern.terms();
+            Step step = new Step(pattern);
+            for(int i = 0; i < terms.length; i++) {
+                if(TriplePattern.isVariable(terms[i])) {
+                    step.slots[i] = slots.get(terms[i]);
+                } else if(terms[i] != null) {
+                    step.constants[i] = dictionary.getId(terms[i]);
+                    if(step.constants[i] == TermDictionary.UNKNOWN) {
+                        return null;
+                    }
+                }
+            }
+            step.plan = store.explain(graphId, step.constants[0], step.constants[1], step.constants[2]);
+            step.estimate = Math.max(1, estimate(step, statistics));
+            steps.add(step);
+        }
+        return steps;
+    }
+
+    /**
+     * Exact counts from the graph statistics when they apply, index estimates otherwise
+     */
+    private long estimate(Step step, GraphStatistics statistics) {
+        if(statistics.getTripletCount() > 0 && step.constants[0] == GraphStore.ANY && step.constants[1] != GraphStore.ANY) {
+            TermDictionary dictionary = store.getDictionary();
+            if(step.constants[2] == GraphStore.ANY) {
+                return statistics.getPredicateCount(dictionary.getNode(step.constants[1]));
+            }
+            if(RDF_TYPE.equals(step.pattern.getPredicate())) {
+                return statistics.getClassCount(dictionary.getNode(step.constants[2]));
+            }
+        }
+        return step.plan.getEstimatedSize();
+    }
+
+    /**
+     * Greedy join order: the cheapest pattern first, then the cheapest pattern sharing a bound variable,
+     * each bound variable dividing the estimate of a pattern
+     *
+     * @param steps List of Step, null if a constant is unknown
+     * @param size number of variables
+     * @return List of Step
+     */
+    private static List<Step> order(List<Step> steps, int size) {
+        if(steps == null) {
+            return null;
+        }
+        List<Step> remaining = new ArrayList<>(steps);
+        List<Step> ordered = new ArrayList<>();
+        boolean[] bound = new boolean[size];
+        while(!remaining.isEmpty()) {
+            Step best = null;
+            boolean bestConnected = false;
+            double bestCost = 0;
+            for(Step step : remaining) {
+                int bindings = 0;
+                for(int slot : step.slots) {
+                    if(slot >= 0 && bound[slot]) {
+                        bindings++;
+                    }
+                }
+                boolean connected = bindings > 0;
+                double cost = step.estimate / Math.pow(BOUND_FACTOR, bindings);
+                if(best == null || (connected && !bestConnected) || (connected == bestConnected && cost < bestCost)) {
+                    best = step;
+                    bestConnected = connected;
+                    bestCost = cost;
+                }
+            }
+            remaining.remove(best);
+            ordered.add(best);
+            for(int slot : best.slots) {
+                if(slot >= 0) {
+                    bound[slot] = true;
+                }
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * The first two patterns are merge joined when both scans are sorted on a shared variable, and the
+     * second one is not much larger than the first, a nested loop being cheaper otherwise
+     *
+     * @param steps List of Step
+     * @return int slot of the join variable, -1 for a nested loop
+     */
+    private static int mergeSlot(List<Step> steps) {
+        if(steps == null || steps.size() < 2) {
+            return -1;
+        }
+        Step first = steps.get(0);
+        Step second = steps.get(1);
+        int slot = first.sortSlot();
+        if(slot < 0 || slot != second.sortSlot() || second.estimate > first.estimate * BOUND_FACTOR) {
+            return -1;
+        }
+        return slot;
+    }
+
+    private static long[] emptyRow(int size) {
+        // GraphStore.ANY marks the unbound slots
+        return new long[size];
+    }
+
+    private static RowIterator empty() {
+        return new RowIterator() {
+            @Override
+            long[] next() {
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Triple pattern with resolved constants
+     */
+    static class Step {
+        final TriplePattern pattern;
+        // term ids of the constants, ANY for variables and wildcards
+        final long[] constants = new long[3];
+        // slots of the variables, -1 for constants and wildcards
+        final int[] slots = {-1, -1, -1};
+        QueryPlan plan;
+        long estimate;
+
+        Step(TriplePattern pattern) {
+            this.pattern = pattern;
+        }
+
+        /**
+         * Slot of the variable the scan is sorted on: the first position after the bound prefix
+         *
+         * @return int, -1 if it is not a variable
+         */
+        int sortSlot() {
+            TripletIndex index = plan.getIndex();
+            long[] positions = index.arrange(1, 2, 3);
+            if(plan.getPrefixLength() >= positions.length) {
+                return -1;
+            }
+            return slots[(int) positions[plan.getPrefixLength()] - 1];
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.TermDictionary;
+import org.semanticweb.yars.nx.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binding
+ *
+ * Solution of a basic graph pattern. Variables are bound to term ids, terms are decoded on access.
+ */
+public class Binding {
+    private final Map<String, Integer> slots;
+    private final long[] ids;
+    private final TermDictionary dictionary;
+
+    /**
+     * @param slots Map of variable to slot
+     * @param ids long[] term id of each slot
+     * @param dictionary TermDictionary
+     */
+    Binding(Map<String, Integer> slots, long[] ids, TermDictionary dictionary) {
+        this.slots = slots;
+        this.ids = ids;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @return List of variables
+     */
+    public List<String> getVariables() {
+        return new ArrayList<>(slots.keySet());
+    }
+
+    /**
+     * @param variable String
+     * @return long, GraphStore.ANY if not bound
+     */
+    public long getId(String variable) {
+        Integer slot = slots.get(variable);
+        return slot == null ? GraphStore.ANY : ids[slot];
+    }
+
+    /**
+     * @param variable String
+     * @return Node, null if not bound
+     */
+    public Node get(String variable) {
+        long id = getId(variable);
+        return id == GraphStore.ANY ? null : dictionary.getNode(id);
+    }
+
+    /**
+     * @return String
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for(String variable : slots.keySet()) {
+            if(sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(variable).append('=').append(get(variable));
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import com.conjecto.graphstore.TermDictionary;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * BindingIterator
+ *
+ * Solutions of a basic graph pattern, computed on demand. The underlying iterators are released at the
+ * end of the iteration or on close.
+ */
+public class BindingIterator implements Iterator<Binding>, Closeable {
+    private final RowIterator rows;
+    private final Map<String, Integer> slots;
+    private final TermDictionary dictionary;
+    private long[] next;
+    private boolean closed = false;
+
+    /**
+     * @param rows RowIterator
+     * @param slots Map of variable to slot
+     * @param dictionary TermDictionary
+     */
+    BindingIterator(RowIterator rows, Map<String, Integer> slots, TermDictionary dictionary) {
+        this.rows = rows;
+        this.slots = slots;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(next == null && !closed) {
+            next = rows.next();
+            if(next == null) {
+                close();
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Binding next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Binding binding = new Binding(slots, next, dictionary);
+        next = null;
+        return binding;
+    }
+
+    @Override
+    public void close() {
+        if(!closed) {
+            closed = true;
+            rows.close();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MergeJoin
+ *
+ * Join of two operators sorted on the id of the join variable, both are read once. The rows of the right
+ * operator sharing a join id are buffered, to be combined with each left row having that id.
+ */
+class MergeJoin extends RowIterator {
+    private final RowIterator left;
+    private final RowIterator right;
+    private final int slot;
+
+    private long[] leftRow;
+    private long[] rightRow;
+    private final List<long[]> group = new ArrayList<>();
+    private long groupId = -1;
+    private int groupIndex = 0;
+
+    /**
+     * @param left RowIterator, sorted on the join variable
+     * @param right RowIterator, sorted on the join variable
+     * @param slot int slot of the join variable
+     */
+    MergeJoin(RowIterator left, RowIterator right, int slot) {
+        this.left = left;
+        this.right = right;
+        this.slot = slot;
+        this.rightRow = right.next();
+    }
+
+    @Override
+    long[] next() {
+        while(true) {
+            while(leftRow != null && groupIndex < group.size()) {
+                long[] row = merge(leftRow, group.get(groupIndex++));
+                if(row != null) {
+                    return row;
+                }
+            }
+            leftRow = left.next();
+            if(leftRow == null) {
+                return null;
+            }
+            groupIndex = 0;
+            long id = leftRow[slot];
+            if(id == groupId) {
+                continue;
+            }
+            // ids are positive, their signed order is the key order
+            while(rightRow != null && rightRow[slot] < id) {
+                rightRow = right.next();
+            }
+            group.clear();
+            while(rightRow != null && rightRow[slot] == id) {
+                group.add(rightRow);
+                rightRow = right.next();
+            }
+            groupId = id;
+        }
+    }
+
+    @Override
+    public void close() {
+        left.close();
+        right.close();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import com.conjecto.graphstore.GraphReader;
+
+/**
+ * NestedLoopJoin
+ *
+ * Index nested loop join: each row of the outer operator is extended with the matches of a triple pattern,
+ * scanned with the variables of the row bound. Rows are produced in the order of the outer operator.
+ */
+class NestedLoopJoin extends RowIterator {
+    private final GraphReader store;
+    private final long graph;
+    private final RowIterator outer;
+    private final BgpQuery.Step step;
+    private PatternScan inner;
+
+    /**
+     * @param store GraphReader
+     * @param graph long
+     * @param outer RowIterator
+     * @param step BgpQuery.Step
+     */
+    NestedLoopJoin(GraphReader store, long graph, RowIterator outer, BgpQuery.Step step) {
+        this.store = store;
+        this.graph = graph;
+        this.outer = outer;
+        this.step = step;
+    }
+
+    @Override
+    long[] next() {
+        while(true) {
+            if(inner != null) {
+                long[] row = inner.next();
+                if(row != null) {
+                    return row;
+                }
+                inner.close();
+                inner = null;
+            }
+            long[] outerRow = outer.next();
+            if(outerRow == null) {
+                return null;
+            }
+            inner = new PatternScan(store, graph, step, outerRow);
+        }
+    }
+
+    @Override
+    public void close() {
+        if(inner != null) {
+            inner.close();
+            inner = null;
+        }
+        outer.close();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import com.conjecto.graphstore.GraphReader;
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.TermDictionary;
+import com.conjecto.graphstore.TripletIndex;
+import com.conjecto.graphstore.TripletIterator;
+
+/**
+ * PatternScan
+ *
+ * Matches of a triple pattern, the variables bound by the input row are substituted before choosing the
+ * index. Keys are read without decoding any term.
+ */
+class PatternScan extends RowIterator {
+    private final BgpQuery.Step step;
+    private final long[] input;
+    private final TripletIterator iterator;
+
+    /**
+     * @param store GraphReader
+     * @param graph long
+     * @param step BgpQuery.Step
+     * @param input long[] row of the outer operator
+     */
+    PatternScan(GraphReader store, long graph, BgpQuery.Step step, long[] input) {
+        this.step = step;
+        this.input = input;
+        long[] ids = new long[3];
+        for(int i = 0; i < ids.length; i++) {
+            ids[i] = step.slots[i] >= 0 ? input[step.slots[i]] : step.constants[i];
+        }
+        this.iterator = store.match(graph, ids[0], ids[1], ids[2]);
+    }
+
+    @Override
+    long[] next() {
+        TripletIndex index = iterator.getIndex();
+        while(iterator.hasNext()) {
+            byte[] key = iterator.nextKey();
+            long[] row = input.clone();
+            // a variable repeated in the pattern must match the same term
+            if(bind(row, step.slots[0], TermDictionary.readId(key, index.getSubjectOffset()))
+                && bind(row, step.slots[1], TermDictionary.readId(key, index.getPredicateOffset()))
+                && bind(row, step.slots[2], TermDictionary.readId(key, index.getObjectOffset()))) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private static boolean bind(long[] row, int slot, long id) {
+        if(slot < 0) {
+            return true;
+        }
+        if(row[slot] == GraphStore.ANY) {
+            row[slot] = id;
+            return true;
+        }
+        return row[slot] == id;
+    }
+
+    @Override
+    public void close() {
+        iterator.close();
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import com.conjecto.graphstore.GraphStore;
+
+import java.io.Closeable;
+
+/**
+ * RowIterator
+ *
+ * Operator of a query plan, producing rows of term ids indexed by variable slot
+ */
+abstract class RowIterator implements Closeable {
+    /**
+     * @return long[] next row, null at the end
+     */
+    abstract long[] next();
+
+    /**
+     * Release the underlying iterators
+     */
+    @Override
+    public abstract void close();
+
+    /**
+     * Merge two rows, the variables bound in both must have the same value
+     *
+     * @param left long[]
+     * @param right long[]
+     * @return long[], null if the rows are not compatible
+     */
+    static long[] merge(long[] left, long[] right) {
+        long[] row = left.clone();
+        for(int i = 0; i < row.length; i++) {
+            if(right[i] != GraphStore.ANY) {
+                if(row[i] == GraphStore.ANY) {
+                    row[i] = right[i];
+                } else if(row[i] != right[i]) {
+                    return null;
+                }
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+/**
+ * TriplePattern
+ *
+ * Triple pattern of a basic graph pattern: terms are N-Triples terms, variables start with '?' and null
+ * terms match anything without being bound.
+ */
+public class TriplePattern {
+    private final String subject;
+    private final String predicate;
+    private final String object;
+
+    /**
+     * @param subject String
+     * @param predicate String
+     * @param object String
+     */
+    public TriplePattern(String subject, String predicate, String object) {
+        this.subject = subject;
+        this.predicate = predicate;
+        this.object = object;
+    }
+
+    /**
+     * @return String
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * @return String
+     */
+    public String getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return String
+     */
+    public String getObject() {
+        return object;
+    }
+
+    /**
+     * @return String[] subject, predicate and object
+     */
+    String[] terms() {
+        return new String[] {subject, predicate, object};
+    }
+
+    /**
+     * @param term String
+     * @return boolean
+     */
+    public static boolean isVariable(String term) {
+        return term != null && term.startsWith("?");
+    }
+
+    /**
+     * @return String
+     */
+    @Override
+    public String toString() {
+        return "(" + (subject == null ? "*" : subject) + " " + (predicate == null ? "*" : predicate) + " " + (object == null ? "*" : object) + ")";
+    }
+}
@@ -8,10 +8,11 @@
 
 package com.conjecto.graphstore.serializer;
 
-import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.GraphReader;
+import com.conjecto.graphstore.PartitionedSerializer;
 import com.conjecto.graphstore.PrefixMapping;
-import com.conjecto.graphstore.Serializer;
 import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.TripletIterator;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.semanticweb.yars.nx.Literal;
 
@@ -23,12 +24,25 @@ import java.util.Iterator;
 /**
  * CsvSerializer
  */
-public class CsvSerializer implements Serializer {
+public class CsvSerializer implements PartitionedSerializer {
     @Override
-    public void serialize(OutputStream out, GraphStore store, PrefixMapping prefixMapping) throws IOException {
+    public void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
+        writeHeader(out, store, prefixMapping);
+        try (TripletIterator iterator = store.querySPO()) {
+            writeTriplets(out, store, prefixMapping, iterator);
+        }
+    }
+
+    @Override
+    public void writeHeader(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
         OutputStreamWriter writer = new OutputStreamWriter(out);
         writer.write("subject,predicate,object,lang\n");
-        Iterator<Triplet> iterator = store.querySPO();
+        writer.flush();
+    }
+
+    @Override
+    public void writeTriplets(OutputStream out, GraphReader store, PrefixMapping prefixMapping, Iterator<Triplet> iterator) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter(out);
         while(iterator.hasNext()) {
             Triplet triplet = iterator.next();
             writer.write(StringEscapeUtils.escapeCsv(triplet.getSubject().getLabel()));
@@ -47,4 +61,8 @@ public class CsvSerializer implements Serializer {
         }
         writer.flush();
     }
+
+    @Override
+    public void writeFooter(OutputStream out, GraphReader store, PrefixMapping prefixMapping) {
+    }
 }
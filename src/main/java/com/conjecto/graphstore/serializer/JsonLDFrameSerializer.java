@@ -8,38 +8,118 @@
 
 package com.conjecto.graphstore.serializer;
 
+import com.conjecto.graphstore.GraphReader;
 import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.LazyTriplet;
 import com.conjecto.graphstore.PrefixMapping;
-import com.conjecto.graphstore.Serializer;
+import com.conjecto.graphstore.TermDictionary;
 import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.TripletIterator;
 import com.conjecto.graphstore.iterator.PredicateIterator;
 import com.google.gson.stream.JsonWriter;
+import org.semanticweb.yars.nx.BNode;
+import org.semanticweb.yars.nx.Literal;
 import org.semanticweb.yars.nx.Node;
+import org.semanticweb.yars.nx.Resource;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
 
 /**
  * JsonLDFrameSerializer
+ *
+ * Resources typed urn:resource are written at the top level, with the nodes they reference embedded once, down
+ * to a maximum depth. Nodes are written from an explicit stack, each depth streaming the description of its node
+ * with its own SPO cursor, re-seeked for every node. Descriptions are read in batches of triplets, and the
+ * descriptions of the children referenced by a batch are prefetched together in key order, within the same
+ * number of triplets: the memory used grows with the depth, not with the size of the graph.
  */
 public class JsonLDFrameSerializer extends JsonLDSerializer {
+    public static final int DEFAULT_MAX_DEPTH = 32;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int maxNodes = Integer.MAX_VALUE;
+    private int batchSize = DEFAULT_BATCH_SIZE;
 
     @Override
-    public void serialize(OutputStream out, GraphStore store, PrefixMapping prefixMapping) throws IOException {
+    public void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
         JsonLDFrameWriter$ w = new JsonLDFrameWriter$(store, prefixMapping) ;
         w.setContext(context);
+        w.setLimits(maxDepth, maxNodes, batchSize);
         w.write(out);
     }
 
+    @Override
+    public boolean isPartitionable() {
+        // nodes are framed from the rdf:type index, not in SPO order
+        return false;
+    }
+
+    /**
+     * Depth below which referenced nodes are no longer embedded, the top-level resources are at depth 0
+     *
+     * @param maxDepth int
+     * @return JsonLDFrameSerializer
+     */
+    public JsonLDFrameSerializer setMaxDepth(int maxDepth) {
+        if(maxDepth < 0) {
+            throw new IllegalArgumentException("Max depth must be positive");
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Number of nodes embedded under a top-level resource, the next ones are written as references
+     *
+     * @param maxNodes int
+     * @return JsonLDFrameSerializer
+     */
+    public JsonLDFrameSerializer setMaxNodes(int maxNodes) {
+        if(maxNodes < 0) {
+            throw new IllegalArgumentException("Max nodes must be positive");
+        }
+        this.maxNodes = maxNodes;
+        return this;
+    }
+
+    /**
+     * Number of triplets of a description read at once, and of triplets prefetched for the children they reference
+     *
+     * @param batchSize int
+     * @return JsonLDFrameSerializer
+     */
+    public JsonLDFrameSerializer setBatchSize(int batchSize) {
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
     static class JsonLDFrameWriter$ extends JsonLDSerializer.JsonLDWriter$ {
+        private int maxDepth = DEFAULT_MAX_DEPTH;
+        private int maxNodes = Integer.MAX_VALUE;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+
+        // SPO cursors of the default graph by depth, re-seeked for each node
+        private final List<TripletIterator> cursors = new ArrayList<>();
+        private final VisitedSet visited = new VisitedSet();
+        private long typeId = TermDictionary.UNKNOWN;
+        private int embedded = 0;
 
-        public JsonLDFrameWriter$(GraphStore store, PrefixMapping prefixMapping) {
+        public JsonLDFrameWriter$(GraphReader store, PrefixMapping prefixMapping) {
             super(store, prefixMapping);
         }
 
+        void setLimits(int maxDepth, int maxNodes, int batchSize) {
+            this.maxDepth = maxDepth;
+            this.maxNodes = maxNodes;
+            this.batchSize = batchSize;
+        }
+
         /**
          * @param writer
          * @throws IOException
@@ -50,11 +130,18 @@ public class JsonLDFrameSerializer extends JsonLDSerializer {
             writer.beginArray();
             writer.setIndent("");
 
-            Set<Node> visited = new HashSet<>();
-            Iterator<Triplet> iterator = store.queryPOS("<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "<urn:resource>");
-            while(iterator.hasNext()) {
-                //visited.clear();
-                writeFramedNode(writer, iterator.next().getSubject(), visited);
+            typeId = store.getDictionary().getId(GraphStore.RDF_TYPE);
+            try (TripletIterator iterator = store.queryPOS(GraphStore.RDF_TYPE, "<urn:resource>")) {
+                while(iterator.hasNext()) {
+                    LazyTriplet triplet = (LazyTriplet) iterator.next();
+                    embedded = 0;
+                    writeFramedNode(writer, triplet.getSubject(), triplet.getSubjectId());
+                }
+            } finally {
+                for(TripletIterator cursor : cursors) {
+                    cursor.close();
+                }
+                cursors.clear();
             }
 
             writer.setIndent("");
@@ -63,38 +150,226 @@ public class JsonLDFrameSerializer extends JsonLDSerializer {
         }
 
         /**
+         * Write a top-level node and the nodes it embeds, without recursion
+         *
          * @param writer
          * @param node
-         * @param visited
+         * @param id term id of the node
          * @throws IOException
          */
-        protected void writeFramedNode(JsonWriter writer, Node node, Set<Node> visited) throws IOException {
-            visited.add(node);
+        protected void writeFramedNode(JsonWriter writer, Node node, long id) throws IOException {
+            Deque<Frame> stack = new ArrayDeque<>();
+            stack.push(openFrame(writer, node, new Description(0, id, null)));
+            while(!stack.isEmpty()) {
+                Frame frame = stack.peek();
+                if(frame.objects == null || !frame.objects.hasNext()) {
+                    if(frame.array) {
+                        writer.endArray();
+                        writer.setIndent("  ");
+                        frame.array = false;
+                    }
+                    if(!frame.predicates.hasNext()) {
+                        writer.endObject(); // }
+                        writer.setIndent("");
+                        stack.pop();
+                        continue;
+                    }
+                    PredicateIterator.PredicateIteration iteration = frame.predicates.next();
+                    frame.objects = iteration.iterator;
+                    frame.special = iteration.predicate.getLabel().equals("http://www.w3.org/1999/02/22-rdf-syntax-ns#type");
+                    writer.setIndent("  ");
+                    writer.name(frame.special ? "@type" : shortForm(iteration.predicate.getLabel()));
+                    continue;
+                }
+
+                LazyTriplet triplet = (LazyTriplet) frame.objects.next();
+                // looked up before reading ahead, which may move to the next batch
+                Child child = frame.description.child(triplet.getObjectId());
+                if(frame.objects.hasNext() && !frame.array) {
+                    writer.beginArray();
+                    writer.setIndent("");
+                    frame.array = true;
+                }
 
+                Node object = triplet.getObject();
+                if(object instanceof Resource || object instanceof BNode) {
+                    if(frame.special) {
+                        writer.value(shortForm(object.getLabel()));
+                    } else if(child != null && !visited.contains(child.id) && embedded < maxNodes) {
+                        embedded++;
+                        stack.push(openFrame(writer, object, new Description(frame.description.depth + 1, child.id, child.triplets)));
+                        child.triplets = null;
+                    } else {
+                        writeNodeReference(writer, object, null);
+                    }
+                } else if(object instanceof Literal) {
+                    writeLiteral(writer, (Literal) object);
+                }
+            }
+        }
+
+        private Frame openFrame(JsonWriter writer, Node node, Description description) throws IOException {
+            visited.add(description.id);
             writer.beginObject();
             writer.setIndent("  ");
             writeNodeReferenceId(writer, node);
+            return new Frame(description);
+        }
 
-            PredicateIterator iterator = new PredicateIterator(store.querySPO(node.toString()));
-            while(iterator.hasNext()) {
-                writePredicate(writer, iterator.next(), visited);
+        /**
+         * Collect the children a batch references, and read the descriptions of the first ones in key order
+         *
+         * @param triplets batch of a description
+         * @param depth int depth of the description
+         * @return Map of the children which may be embedded, by term id
+         */
+        private Map<Long, Child> prefetch(List<Triplet> triplets, int depth) {
+            if(depth >= maxDepth || embedded >= maxNodes) {
+                return Collections.emptyMap();
+            }
+            Map<Long, Child> children = new HashMap<>();
+            for(Triplet t : triplets) {
+                LazyTriplet triplet = (LazyTriplet) t;
+                long id = triplet.getObjectId();
+                if(triplet.getPredicateId() != typeId && !children.containsKey(id) && !visited.contains(id)
+                        && (triplet.getObject() instanceof Resource || triplet.getObject() instanceof BNode)) {
+                    children.put(id, new Child(id));
+                }
             }
+            List<Child> batch = new ArrayList<>(children.values());
+            batch.sort(Comparator.comparingLong(child -> child.id));
+            // seeks are then made forward through the index
+            int budget = batchSize;
+            for(Child child : batch) {
+                TripletIterator cursor = seek(depth + 1, child.id);
+                List<Triplet> description = new ArrayList<>();
+                while(description.size() < budget && cursor.hasNext()) {
+                    description.add(cursor.next());
+                }
+                if(cursor.hasNext()) {
+                    // larger than what is left, streamed when written
+                    break;
+                }
+                child.triplets = description;
+                budget -= description.size();
+            }
+            return children;
+        }
 
-            writer.endObject(); // }
-            writer.setIndent("");
+        /**
+         * Position the cursor of a depth on the description of a node
+         *
+         * @param depth int
+         * @param id long subject id
+         * @return TripletIterator
+         */
+        private TripletIterator seek(int depth, long id) {
+            while(cursors.size() <= depth) {
+                cursors.add(store.querySPO());
+            }
+            byte[] prefix = new byte[2 * TermDictionary.ID_LENGTH];
+            TermDictionary.writeId(prefix, 0, TermDictionary.DEFAULT_GRAPH);
+            TermDictionary.writeId(prefix, TermDictionary.ID_LENGTH, id);
+            return cursors.get(depth).seek(prefix).setLimit(TripletIterator.prefixUpperBound(prefix));
         }
 
         /**
-         * @param node
+         * Description of a node, read in batches from a prefetched list or from the cursor of its depth
          */
-        @Override
-        protected void writeNodeReference(JsonWriter writer, Node node, Set<Node> visited) throws IOException {
-            if(!visited.contains(node)) {
-                // never visited
-                writeFramedNode(writer, node, visited);
+        private class Description implements Iterator<Triplet> {
+            final int depth;
+            final long id;
+            private final Iterator<Triplet> source;
+            private final List<Triplet> batch = new ArrayList<>();
+            private int position = 0;
+            // children referenced by the current batch
+            private Map<Long, Child> children = Collections.emptyMap();
+
+            Description(int depth, long id, List<Triplet> triplets) {
+                this.depth = depth;
+                this.id = id;
+                this.source = triplets != null ? triplets.iterator() : seek(depth, id);
+            }
+
+            @Override
+            public boolean hasNext() {
+                if(position < batch.size()) {
+                    return true;
+                }
+                batch.clear();
+                position = 0;
+                while(batch.size() < batchSize && source.hasNext()) {
+                    batch.add(source.next());
+                }
+                children = prefetch(batch, depth);
+                return !batch.isEmpty();
+            }
+
+            @Override
+            public Triplet next() {
+                if(!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.get(position++);
+            }
+
+            Child child(long id) {
+                return children.get(id);
+            }
+        }
+
+        /**
+         * Node being written
+         */
+        private static class Frame {
+            final Description description;
+            final PredicateIterator predicates;
+            Iterator<Triplet> objects;
+            // rdf:type values are written as short forms
+            boolean special = false;
+            boolean array = false;
+
+            Frame(Description description) {
+                this.description = description;
+                this.predicates = new PredicateIterator(description);
+            }
+        }
+    }
+
+    /**
+     * Node referenced by the node being written
+     */
+    private static class Child {
+        final long id;
+        // prefetched description, released once written
+        List<Triplet> triplets;
+
+        Child(long id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Term ids of the written nodes, one bit per id: ids are allocated sequentially from 1
+     */
+    static class VisitedSet {
+        private final BitSet bits = new BitSet();
+        // ids out of the range of a BitSet
+        private final Set<Long> others = new HashSet<>();
+
+        void add(long id) {
+            if(id >= 0 && id <= Integer.MAX_VALUE) {
+                bits.set((int) id);
             } else {
-                super.writeNodeReference(writer, node, visited);
+                others.add(id);
+            }
+        }
+
+        boolean contains(long id) {
+            if(id >= 0 && id <= Integer.MAX_VALUE) {
+                return bits.get((int) id);
             }
+            return others.contains(id);
         }
     }
 }
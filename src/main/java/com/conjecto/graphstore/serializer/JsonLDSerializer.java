@@ -8,10 +8,11 @@
 
 package com.conjecto.graphstore.serializer;
 
-import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.GraphReader;
+import com.conjecto.graphstore.PartitionedSerializer;
 import com.conjecto.graphstore.PrefixMapping;
-import com.conjecto.graphstore.Serializer;
 import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.TripletIterator;
 import com.conjecto.graphstore.iterator.PredicateIterator;
 import com.conjecto.graphstore.iterator.SubjectIterator;
 import com.google.gson.Gson;
@@ -25,21 +26,51 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * JsonLDSerializer
  */
-public class JsonLDSerializer implements Serializer {
+public class JsonLDSerializer implements PartitionedSerializer {
 
     Map<String, String> context = new HashMap<>();
 
     @Override
-    public void serialize(OutputStream out, GraphStore store, PrefixMapping prefixMapping) throws IOException {
+    public void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
+        // same layout as a parallel serialization
+        writeHeader(out, store, prefixMapping);
+        try (TripletIterator iterator = store.querySPO()) {
+            writeTriplets(out, store, prefixMapping, iterator);
+        }
+        writeFooter(out, store, prefixMapping);
+    }
+
+    @Override
+    public void writeHeader(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
+        JsonLDWriter$ w = new JsonLDWriter$(store, prefixMapping) ;
+        w.setContext(context);
+        w.writeHeader(out);
+    }
+
+    @Override
+    public void writeTriplets(OutputStream out, GraphReader store, PrefixMapping prefixMapping, Iterator<Triplet> triplets) throws IOException {
         JsonLDWriter$ w = new JsonLDWriter$(store, prefixMapping) ;
         w.setContext(context);
-        w.write(out);
+        w.writeResources(out, new SubjectIterator(triplets));
+    }
+
+    @Override
+    public void writeFooter(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter(out);
+        writer.write("]\n}");
+        writer.flush();
+    }
+
+    @Override
+    public String getRangeSeparator() {
+        return ",";
     }
 
     public JsonLDSerializer setContext(Map<String, String> context) {
@@ -53,11 +84,11 @@ public class JsonLDSerializer implements Serializer {
     }
 
     static class JsonLDWriter$ {
-        GraphStore store;
+        GraphReader store;
         PrefixMapping prefixMapping;
         Map<String, String> context = new HashMap<>();
 
-        public JsonLDWriter$(GraphStore store, PrefixMapping prefixMapping) {
+        public JsonLDWriter$(GraphReader store, PrefixMapping prefixMapping) {
             this.store = store;
             this.prefixMapping = prefixMapping.clone();
         }
@@ -79,6 +110,47 @@ public class JsonLDSerializer implements Serializer {
             writer.flush();
         }
 
+        /**
+         * Open the document up to the @graph array, closed by the serializer footer
+         *
+         * @param out
+         * @throws IOException
+         */
+        public void writeHeader(OutputStream out) throws IOException {
+            JsonWriter writer = new JsonWriter(new OutputStreamWriter(out));
+            writer.setIndent("  ");
+
+            writer.beginObject();
+            writeContext(writer);
+            writer.name("@graph");
+            writer.beginArray();
+            writer.flush();
+        }
+
+        /**
+         * Write the resources as a fragment of the @graph array, without enclosing brackets
+         *
+         * @param out
+         * @param iterator
+         * @throws IOException
+         */
+        public void writeResources(OutputStream out, SubjectIterator iterator) throws IOException {
+            OutputStreamWriter output = new OutputStreamWriter(out);
+            boolean first = true;
+            while(iterator.hasNext()) {
+                if(!first) {
+                    output.write(",");
+                }
+                // one top-level value per writer
+                JsonWriter writer = new JsonWriter(output);
+                writer.setIndent("");
+                writeResource(writer, iterator.next());
+                writer.flush();
+                first = false;
+            }
+            output.flush();
+        }
+
         /**
          * @param writer
          * @throws IOException
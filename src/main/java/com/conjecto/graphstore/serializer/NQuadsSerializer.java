@@ -0,0 +1,37 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.serializer;
+
+import com.conjecto.graphstore.GraphReader;
+import com.conjecto.graphstore.PrefixMapping;
+import com.conjecto.graphstore.Serializer;
+import com.conjecto.graphstore.TripletIterator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+
+/**
+ * NQuadsSerializer
+ *
+ * Serialize the triplets of all the graphs, graph by graph.
+ */
+public class NQuadsSerializer implements Serializer {
+    @Override
+    public void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter(out);
+        try (TripletIterator iterator = store.queryGSPO()) {
+            while(iterator.hasNext()) {
+                // the graph label is only written for named graphs
+                writer.write(iterator.next() + " .\n");
+            }
+        }
+        writer.flush();
+    }
+}
@@ -8,10 +8,11 @@
 
 package com.conjecto.graphstore.serializer;
 
-import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.GraphReader;
+import com.conjecto.graphstore.PartitionedSerializer;
 import com.conjecto.graphstore.PrefixMapping;
-import com.conjecto.graphstore.Serializer;
 import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.TripletIterator;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -21,14 +22,28 @@ import java.util.Iterator;
 /**
  * NTriplesSerializer
  */
-public class NTriplesSerializer implements Serializer {
+public class NTriplesSerializer implements PartitionedSerializer {
     @Override
-    public void serialize(OutputStream out, GraphStore store, PrefixMapping prefixMapping) throws IOException {
+    public void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
+        try (TripletIterator iterator = store.querySPO()) {
+            writeTriplets(out, store, prefixMapping, iterator);
+        }
+    }
+
+    @Override
+    public void writeHeader(OutputStream out, GraphReader store, PrefixMapping prefixMapping) {
+    }
+
+    @Override
+    public void writeTriplets(OutputStream out, GraphReader store, PrefixMapping prefixMapping, Iterator<Triplet> iterator) throws IOException {
         OutputStreamWriter writer = new OutputStreamWriter(out);
-        Iterator<Triplet> iterator = store.querySPO();
         while(iterator.hasNext()) {
             writer.write(iterator.next() + " .\n");
         }
         writer.flush();
     }
+
+    @Override
+    public void writeFooter(OutputStream out, GraphReader store, PrefixMapping prefixMapping) {
+    }
 }
@@ -8,9 +8,11 @@
 
 package com.conjecto.graphstore.serializer;
 
-import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.GraphReader;
+import com.conjecto.graphstore.PartitionedSerializer;
 import com.conjecto.graphstore.PrefixMapping;
-import com.conjecto.graphstore.Serializer;
+import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.TripletIterator;
 import com.conjecto.graphstore.iterator.PredicateIterator;
 import com.conjecto.graphstore.iterator.SubjectIterator;
 import org.semanticweb.yars.nx.BNode;
@@ -22,24 +24,43 @@ import org.semanticweb.yars.nx.util.NxUtil;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
  * TurtleSerializer
  */
-public class TurtleSerializer implements Serializer {
+public class TurtleSerializer implements PartitionedSerializer {
 
     @Override
-    public void serialize(OutputStream out, GraphStore store, PrefixMapping prefixMapping) throws IOException {
+    public void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
         TurtleWriter$ w = new TurtleWriter$(store, prefixMapping) ;
         w.write(out);
     }
 
+    @Override
+    public void writeHeader(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter(out);
+        new TurtleWriter$(store, prefixMapping).writeProlog(writer);
+        writer.flush();
+    }
+
+    @Override
+    public void writeTriplets(OutputStream out, GraphReader store, PrefixMapping prefixMapping, Iterator<Triplet> triplets) throws IOException {
+        OutputStreamWriter writer = new OutputStreamWriter(out);
+        new TurtleWriter$(store, prefixMapping).writeResources(writer, new SubjectIterator(triplets));
+        writer.flush();
+    }
+
+    @Override
+    public void writeFooter(OutputStream out, GraphReader store, PrefixMapping prefixMapping) {
+    }
+
     static class TurtleWriter$ {
-        GraphStore store;
+        GraphReader store;
         PrefixMapping prefixMapping;
 
-        public TurtleWriter$(GraphStore store, PrefixMapping prefixMapping) {
+        public TurtleWriter$(GraphReader store, PrefixMapping prefixMapping) {
             this.store = store;
             this.prefixMapping = prefixMapping;
         }
@@ -47,11 +68,13 @@ public class TurtleSerializer implements Serializer {
         public void write(OutputStream out) throws IOException {
             OutputStreamWriter writer = new OutputStreamWriter(out);
             writeProlog(writer);
-            writeResources(writer);
+            try (TripletIterator iterator = store.querySPO()) {
+                writeResources(writer, new SubjectIterator(iterator));
+            }
             writer.flush();
         }
 
-        private void writeProlog(OutputStreamWriter writer) throws IOException {
+        void writeProlog(OutputStreamWriter writer) throws IOException {
             for(Map.Entry<String, String> entry : prefixMapping.getNsPrefixMap().entrySet()) {
                 writer.write("@prefix " + entry.getKey() + ": <"+ entry.getValue() + "> .\n");
             }
@@ -62,10 +85,10 @@ public class TurtleSerializer implements Serializer {
 
         /**
          * @param writer
+         * @param iterator
          * @throws IOException
          */
-        private void writeResources(OutputStreamWriter writer) throws IOException {
-            SubjectIterator iterator = store.subjectIterator();
+        void writeResources(OutputStreamWriter writer, SubjectIterator iterator) throws IOException {
             while(iterator.hasNext()) {
                 writeResource(writer, iterator.next());
                 writer.write("\n");
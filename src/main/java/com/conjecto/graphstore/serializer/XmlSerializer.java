@@ -8,10 +8,11 @@
 
 package com.conjecto.graphstore.serializer;
 
-import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.GraphReader;
 import com.conjecto.graphstore.PrefixMapping;
 import com.conjecto.graphstore.Serializer;
 import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.TripletIterator;
 import com.conjecto.graphstore.iterator.PredicateIterator;
 import com.conjecto.graphstore.iterator.SubjectIterator;
 import org.semanticweb.yars.nx.BNode;
@@ -35,13 +36,13 @@ import java.util.Set;
 public class XmlSerializer implements Serializer {
 
     @Override
-    public void serialize(OutputStream out, GraphStore store, PrefixMapping prefixMapping) throws IOException {
+    public void serialize(OutputStream out, GraphReader store, PrefixMapping prefixMapping) throws IOException {
         XmlWriter$ w = new XmlWriter$(store, prefixMapping) ;
         w.write(out);
     }
 
     static class XmlWriter$ {
-        GraphStore store;
+        GraphReader store;
         PrefixMapping prefixMapping;
         Set<String> additionalPrefixes;
 
@@ -49,7 +50,7 @@ public class XmlSerializer implements Serializer {
          * @param store
          * @param prefixMapping
          */
-        public XmlWriter$(GraphStore store, PrefixMapping prefixMapping) {
+        public XmlWriter$(GraphReader store, PrefixMapping prefixMapping) {
             this.store = store;
             this.prefixMapping = prefixMapping;
             this.additionalPrefixes = new HashSet<>();
@@ -87,9 +88,11 @@ public class XmlSerializer implements Serializer {
          * @throws IOException
          */
         private void writeResources(OutputStreamWriter writer) throws IOException {
-            SubjectIterator iterator = store.subjectIterator();
-            while(iterator.hasNext()) {
-                writeResource(writer, iterator.next());
+            try (TripletIterator triplets = store.querySPO()) {
+                SubjectIterator iterator = new SubjectIterator(triplets);
+                while(iterator.hasNext()) {
+                    writeResource(writer, iterator.next());
+                }
             }
         }
 
@@ -32,8 +32,7 @@ public abstract class AbstractTest {
     @Before
     public void setUpClass() throws GraphStoreException {
         // load store
-        GraphStoreOptions options = (new GraphStoreOptions()).setCreateIfMissing(true);
-        store = GraphStore.open(db.getRoot().getAbsolutePath(), options);
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions());
 
         prefixMapping = new PrefixMapping();
         prefixMapping.set("owl", "http://www.w3.org/2002/07/owl#");
@@ -47,6 +46,10 @@ public abstract class AbstractTest {
         prefixMapping.set("wiki", "http://en.wikipedia.org/wiki/");
     }
 
+    protected GraphStoreOptions createOptions() {
+        return (new GraphStoreOptions()).setCreateIfMissing(true);
+    }
+
     @After
     public void afterClass() {
         if(store != null) {
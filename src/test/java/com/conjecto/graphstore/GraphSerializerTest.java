@@ -0,0 +1,141 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import com.conjecto.graphstore.exception.GraphStoreException;
+import com.conjecto.graphstore.serializer.NTriplesSerializer;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GraphSerializerTest
+ */
+public class GraphSerializerTest extends AbstractTest {
+    @Test
+    public void testParallelSerialize() throws IOException {
+        loadFromFixture();
+        // subjects sampled from the memtable
+        Assert.assertTrue(store.splitSPO(8).size() > 3);
+        for(String format : new String[] {"nt", "csv", "ttl", "jsonld"}) {
+            Assert.assertEquals(format, serialize(format, 1), serialize(format, 2));
+        }
+        JsonObject document = new JsonParser().parse(serialize("jsonld", 2)).getAsJsonObject();
+        Assert.assertEquals(5, document.getAsJsonArray("@graph").size());
+    }
+
+    @Test
+    public void testParallelSerializeAfterCompact() throws IOException, GraphStoreException {
+        loadFromFixture();
+        store.compact();
+        Assert.assertEquals(serialize("ttl", 1), serialize("ttl", 3));
+    }
+
+    @Test
+    public void testSplitAfterCompact() throws GraphStoreException {
+        List<Triplet> triplets = new ArrayList<>();
+        for(int i = 0; i < 20000; i++) {
+            triplets.add(Triplet.parse("<http://example.org/s" + (i / 10) + ">|<http://example.org/p" + (i % 10) + ">|\"value " + i + "\""));
+        }
+        store.add(triplets.iterator());
+        store.compact();
+
+        long read = store.getMetrics().getTripletsRead();
+        List<byte[]> boundaries = store.splitSPO(8);
+        // boundaries are found without scanning the keys
+        Assert.assertEquals(read, store.getMetrics().getTripletsRead());
+        Assert.assertTrue(boundaries.size() > 5);
+
+        long total = 0;
+        long largest = 0;
+        for(int i = 0; i < boundaries.size() - 1; i++) {
+            if(i > 0) {
+                // subject prefixes
+                Assert.assertEquals(2 * TermDictionary.ID_LENGTH, boundaries.get(i).length);
+            }
+            long count = store.querySPO(boundaries.get(i), boundaries.get(i + 1)).count();
+            total += count;
+            largest = Math.max(largest, count);
+        }
+        Assert.assertEquals(20000, total);
+        Assert.assertTrue(largest < 20000 / 2);
+    }
+
+    @Test
+    public void testSerializeShards() throws IOException {
+        loadFromFixture();
+        Path directory = db.newFolder("shards").toPath();
+        List<Path> shards = new GraphSerializer(store, "nt", prefixMapping).setParallelism(2).serializeShards(directory);
+        Assert.assertTrue(shards.size() > 1);
+        Assert.assertEquals("part-00000.nt", shards.get(0).getFileName().toString());
+        StringBuilder content = new StringBuilder();
+        for(Path shard : shards) {
+            content.append(new String(Files.readAllBytes(shard), StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals(serialize("nt", 1), content.toString());
+
+        // formats which are not partitionable are written as a single shard
+        shards = new GraphSerializer(store, "jsonld-frame", prefixMapping).setParallelism(2).serializeShards(directory);
+        Assert.assertEquals(1, shards.size());
+    }
+
+    @Test
+    public void testFailingRange() throws IOException {
+        loadFromFixture();
+        AtomicBoolean failed = new AtomicBoolean(false);
+        AtomicInteger running = new AtomicInteger(0);
+        GraphSerializerRegistry.register("nt-failing", () -> new NTriplesSerializer() {
+            @Override
+            public void writeTriplets(OutputStream out, GraphReader store, PrefixMapping prefixMapping, Iterator<Triplet> triplets) throws IOException {
+                running.incrementAndGet();
+                try {
+                    if(triplets.hasNext() && failed.compareAndSet(false, true)) {
+                        throw new IOException("failed range");
+                    }
+                    while(triplets.hasNext()) {
+                        triplets.next();
+                        // slow range, still running when the first one fails
+                        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200));
+                    }
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        });
+        try {
+            new GraphSerializer(store, "nt-failing", prefixMapping).setParallelism(4).serialize(new ByteArrayOutputStream());
+            Assert.fail("The range failure must be reported");
+        } catch (IOException e) {
+            Assert.assertEquals("failed range", e.getMessage());
+        }
+        // the workers are stopped before serialize returns
+        Assert.assertEquals(0, running.get());
+    }
+
+    private String serialize(String format, int parallelism) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new GraphSerializer(store, format, prefixMapping).setParallelism(parallelism).serialize(output);
+        return output.toString("UTF-8");
+    }
+}
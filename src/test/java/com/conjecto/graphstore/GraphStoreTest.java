@@ -0,0 +1,577 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore;
+
+import com.conjecto.graphstore.exception.GraphStoreException;
+import com.conjecto.graphstore.exception.GraphStoreImportException;
+import com.conjecto.graphstore.iterator.PredicateIterator;
+import com.conjecto.graphstore.iterator.SubjectIterator;
+import com.conjecto.graphstore.serializer.NTriplesSerializer;
+import org.junit.Assert;
+import org.junit.Test;
+import org.rocksdb.RocksDBException;
+import org.rocksdb.WriteBatch;
+
+import java.io.FileNotFoundException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * GraphStoreTest
+ */
+public class GraphStoreTest extends AbstractTest {
+    static final String SHOW = "<http://example.org/show/218>";
+    static final String LABEL = "<http://www.w3.org/2000/01/rdf-schema#label>";
+
+    @Override
+    protected GraphStoreOptions createOptions() {
+        return super.createOptions().setEnableOSPIndex(true);
+    }
+
+    @Test
+    public void testQuerySPO() throws FileNotFoundException {
+        loadFromFixture();
+        List<Triplet> triplets = store.querySPO(SHOW).toList();
+        Assert.assertEquals(4, triplets.size());
+        for(Triplet triplet : triplets) {
+            Assert.assertEquals(SHOW, triplet.getSubject().toString());
+        }
+        Assert.assertEquals(2, store.querySPO(SHOW, LABEL).toList().size());
+    }
+
+    @Test
+    public void testQueryPOS() throws FileNotFoundException {
+        loadFromFixture();
+        List<Triplet> triplets = store.queryPOS(LABEL).toList();
+        Assert.assertEquals(2, triplets.size());
+        Assert.assertEquals("\"That Seventies Show\"", triplets.get(1).getObject().toString());
+    }
+
+    @Test
+    public void testUnknownTerm() throws FileNotFoundException {
+        loadFromFixture();
+        Assert.assertFalse(store.querySPO("<http://example.org/unknown>").hasNext());
+    }
+
+    @Test
+    public void testQueryOSP() throws FileNotFoundException {
+        loadFromFixture();
+        List<Triplet> triplets = store.queryOSP(SHOW).toList();
+        Assert.assertEquals(3, triplets.size());
+        Assert.assertEquals(2, store.queryOSP(SHOW, "<http://en.wikipedia.org/wiki/Helium2>").toList().size());
+        Assert.assertEquals(1, store.queryOSP(SHOW, "<http://en.wikipedia.org/wiki/Helium2>", "<http://example.org/elements/hide>").toList().size());
+    }
+
+    @Test
+    public void testMatch() throws FileNotFoundException {
+        loadFromFixture();
+        String helium = "<http://en.wikipedia.org/wiki/Helium2>";
+        Assert.assertEquals(TripletIndex.OSP, store.explain(helium, null, SHOW).getIndex());
+        Assert.assertEquals(2, store.match(helium, null, SHOW).toList().size());
+        Assert.assertEquals(TripletIndex.POS, store.explain(null, LABEL, null).getIndex());
+        Assert.assertEquals(2, store.match(null, LABEL, null).toList().size());
+        Assert.assertEquals(15, store.match(null, null, null).toList().size());
+        Assert.assertEquals(0, store.match(helium, "<http://example.org/unknown>", null).toList().size());
+    }
+
+    @Test
+    public void testMatchFilter() throws FileNotFoundException, GraphStoreException {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), super.createOptions());
+        loadFromFixture();
+        QueryPlan plan = store.explain(SHOW, null, "\"That Seventies Show\"@en");
+        Assert.assertEquals(TripletIndex.SPO, plan.getIndex());
+        Assert.assertEquals(1, plan.getFilterOffsets().size());
+        Assert.assertEquals(1, store.match(SHOW, null, "\"That Seventies Show\"@en").toList().size());
+    }
+
+    @Test
+    public void testQueryAfterCompact() throws FileNotFoundException, GraphStoreException {
+        loadFromFixture();
+        store.compact();
+        // shorter than the POS prefix extractor, then covering it
+        Assert.assertEquals(2, store.queryPOS(LABEL).toList().size());
+        Assert.assertEquals(2, store.queryPOS("<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "<urn:resource>").toList().size());
+        Assert.assertEquals(4, store.querySPO(SHOW).toList().size());
+        Assert.assertEquals(15, store.querySPO().toList().size());
+    }
+
+    @Test
+    public void testCacheStatistics() throws FileNotFoundException, GraphStoreException {
+        store.close();
+        GraphStoreOptions options = super.createOptions()
+            .setLRUBlockCache(8 * 1024 * 1024, 0.5)
+            .setRowCache(1024 * 1024)
+            .setEnableStatistics(true);
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), options);
+        loadFromFixture();
+        store.compact();
+        store.querySPO(SHOW).toList();
+        CacheStatistics statistics = store.getCacheStatistics();
+        Assert.assertTrue(statistics.getBlockCacheUsage() > 0);
+        Assert.assertTrue(statistics.getBlockCacheHits() + statistics.getBlockCacheMisses() > 0);
+        Assert.assertEquals(1024 * 1024, statistics.getRowCacheCapacity());
+    }
+
+    @Test
+    public void testAddStream() throws IOException, GraphStoreException {
+        loadFromFixture();
+        List<Triplet> triplets = store.querySPO().toList();
+        store.close();
+        store = GraphStore.open(db.newFolder().getAbsolutePath(), super.createOptions().setWriteBatchSize(4));
+        Assert.assertEquals(15, store.add(triplets.stream()));
+        Assert.assertEquals(15, store.querySPO().toList().size());
+    }
+
+    @Test
+    public void testBulkImport() throws FileNotFoundException, GraphStoreException {
+        store.beginBulkImport();
+        loadFromFixture();
+        store.endBulkImport();
+        Assert.assertFalse(store.isBulkImportInterrupted());
+        Assert.assertEquals(15, store.querySPO().toList().size());
+    }
+
+    @Test
+    public void testInterruptedBulkImport() throws GraphStoreException {
+        store.beginBulkImport();
+        store.close();
+        store = null;
+        try {
+            GraphStore.open(db.getRoot().getAbsolutePath(), createOptions());
+            Assert.fail("An interrupted bulk import must be detected");
+        } catch (GraphStoreImportException e) {
+            // expected
+        }
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setAllowInterruptedImport(true));
+        Assert.assertTrue(store.isBulkImportInterrupted());
+    }
+
+    @Test
+    public void testInterruptedIngestion() throws IOException, GraphStoreException, RocksDBException {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setEnableGraphStatistics(true));
+        loadFromFixture();
+        // stopped once SPO was ingested, before POS and OSP
+        store.db.deleteRange(store.indexHandles.get(TripletIndex.POS), new byte[0], TripletIterator.prefixUpperBound(new byte[0]));
+        store.db.deleteRange(store.indexHandles.get(TripletIndex.OSP), new byte[0], TripletIterator.prefixUpperBound(new byte[0]));
+        Files.write(Paths.get(db.getRoot().getAbsolutePath(), GraphStore.BULK_INGEST_MARKER + "-bulk0"), new byte[0]);
+        store.close();
+        store = null;
+        try {
+            GraphStore.open(db.getRoot().getAbsolutePath(), createOptions());
+            Assert.fail("An interrupted ingestion must be detected");
+        } catch (GraphStoreImportException e) {
+            // expected
+        }
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setEnableGraphStatistics(true).setAllowInterruptedImport(true));
+        Assert.assertTrue(store.isBulkImportInterrupted());
+        Assert.assertEquals(0, store.queryPOS(LABEL).toList().size());
+        store.rebuildIndexes();
+        Assert.assertFalse(store.isBulkImportInterrupted());
+        Assert.assertEquals(2, store.queryPOS(LABEL).toList().size());
+        Assert.assertEquals(3, store.queryOSP(SHOW).toList().size());
+        Assert.assertEquals(15, store.statistics().getTripletCount());
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions());
+        Assert.assertEquals(15, store.queryPOS().toList().size());
+    }
+
+    @Test
+    public void testRemove() throws FileNotFoundException {
+        loadFromFixture();
+        List<Triplet> triplets = store.querySPO(SHOW, LABEL).toList();
+        store.remove(triplets.get(0));
+        Assert.assertEquals(1, store.querySPO(SHOW, LABEL).toList().size());
+        Assert.assertEquals(1, store.queryPOS(LABEL).toList().size());
+        store.remove(triplets);
+        Assert.assertEquals(0, store.querySPO(SHOW, LABEL).toList().size());
+        Assert.assertEquals(13, store.match(null, null, null).toList().size());
+    }
+
+    @Test
+    public void testRemoveAll() throws FileNotFoundException, GraphStoreException {
+        loadFromFixture();
+        Assert.assertEquals(4, store.removeAll(SHOW, null, null));
+        Assert.assertEquals(0, store.querySPO(SHOW).toList().size());
+        Assert.assertEquals(0, store.queryPOS(LABEL).toList().size());
+        // filtered pattern, no range delete
+        String helium = "<http://en.wikipedia.org/wiki/Helium2>";
+        Assert.assertEquals(2, store.removeAll(helium, null, SHOW));
+        Assert.assertEquals(0, store.queryOSP(SHOW, helium).toList().size());
+        store.compact();
+        Assert.assertEquals(9, store.querySPO().toList().size());
+        Assert.assertEquals(9, store.queryPOS().toList().size());
+        Assert.assertEquals(9, store.queryOSP().toList().size());
+    }
+
+    @Test
+    public void testConcurrentRemoveAll() throws Exception {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setWriteBatchSize(100));
+        String subject = "<http://example.org/s>";
+        List<Triplet> triplets = new ArrayList<>();
+        for(int i = 0; i < 10000; i++) {
+            triplets.add(Triplet.parse(subject + "|" + LABEL + "|\"label " + i + "\""));
+        }
+        store.add(triplets.iterator());
+
+        // triplets added under the removed prefix while it is cleared
+        List<Triplet> added = new ArrayList<>();
+        for(int i = 0; i < 2000; i++) {
+            added.add(Triplet.parse(subject + "|" + LABEL + "|\"added " + i + "\""));
+        }
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> add = writer.submit(() -> store.add(added.iterator()));
+            store.removeAll(subject, null, null);
+            add.get();
+        } finally {
+            writer.shutdownNow();
+        }
+        // each triplet is either in both indexes or in none
+        Assert.assertEquals(store.querySPO(subject).count(), store.queryPOS(LABEL).count());
+    }
+
+    @Test
+    public void testDropGraph() throws FileNotFoundException {
+        loadFromFixture();
+        String graph = "<http://example.org/graph/a>";
+        List<Triplet> triplets = store.querySPO(SHOW).toList();
+        for(Triplet triplet : triplets) {
+            store.add(new Triplet(triplet.getSubject(), triplet.getPredicate(), triplet.getObject(), Triplet.parseNode(graph)));
+        }
+        Assert.assertEquals(4, store.queryGSPO(graph).toList().size());
+        Assert.assertEquals(19, store.queryGSPO().toList().size());
+        Assert.assertEquals(2, store.removeAll(graph, SHOW, LABEL, null));
+        store.dropGraph(graph);
+        Assert.assertEquals(0, store.queryGSPO(graph).toList().size());
+        Assert.assertEquals(0, store.match(graph, null, null, SHOW).toList().size());
+        Assert.assertEquals(15, store.queryGSPO().toList().size());
+        Assert.assertEquals(15, store.queryOSP().toList().size());
+    }
+
+    @Test
+    public void testReadSession() throws IOException {
+        loadFromFixture();
+        try (ReadSession session = store.newReadSession()) {
+            TripletIterator iterator = session.querySPO(SHOW);
+            store.removeAll(SHOW, null, null);
+            store.dropGraph(null);
+            // iterators opened before and after the writes see the same state
+            Assert.assertEquals(4, iterator.toList().size());
+            Assert.assertEquals(15, session.match(null, null, null).toList().size());
+            // serializers read the session as any store
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            new NTriplesSerializer().serialize(output, session, new PrefixMapping());
+            Assert.assertEquals(15, output.toString().split("\n").length);
+        }
+        Assert.assertEquals(0, store.querySPO().toList().size());
+    }
+
+    @Test
+    public void testLazyTriplet() throws FileNotFoundException {
+        loadFromFixture();
+        Set<Triplet> triplets = new HashSet<>(store.querySPO().toList());
+        Assert.assertEquals(15, triplets.size());
+        // same terms read from another index
+        Assert.assertTrue(triplets.containsAll(store.queryOSP().toList()));
+        Triplet triplet = store.querySPO(SHOW, LABEL).next();
+        Assert.assertEquals(SHOW, triplet.getSubject().toString());
+        Assert.assertTrue(triplet.toString().startsWith(SHOW + " " + LABEL + " \"That Seventies Show\""));
+    }
+
+    @Test
+    public void testTermCache() throws FileNotFoundException {
+        loadFromFixture();
+        TermDictionary dictionary = store.getDictionary();
+        // predicates are shared by many triplets
+        Assert.assertTrue(dictionary.getInternCache().getHitRate() > 0);
+        List<Triplet> triplets = store.queryPOS(LABEL).toList();
+        Assert.assertSame(triplets.get(0).getPredicate(), triplets.get(1).getPredicate());
+        Assert.assertTrue(dictionary.getNodeCache().getHitCount() > 0);
+
+        TermCache<Integer, Integer> cache = new TermCache<>(4);
+        for(int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        Assert.assertTrue(cache.size() <= 4);
+        Assert.assertEquals(Integer.valueOf(9), cache.get(9));
+        Assert.assertNull(cache.get(0));
+        Assert.assertEquals(0.5, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testTermBatch() throws GraphStoreException, RocksDBException {
+        TermDictionary dictionary = store.getDictionary();
+        String term = "<http://example.org/pending>";
+        Map<String, Long> pending = new HashMap<>();
+        long id;
+        try (WriteBatch batch = new WriteBatch()) {
+            id = dictionary.getOrCreateId(Triplet.parseNode(term), batch, pending);
+            Assert.assertEquals(id, dictionary.getOrCreateId(Triplet.parseNode(term), batch, pending));
+            Assert.assertEquals(2, batch.count());
+            // unknown to the other writers until the batch is written
+            Assert.assertEquals(TermDictionary.UNKNOWN, dictionary.getId(term));
+            try (WriteBatch other = new WriteBatch()) {
+                Map<String, Long> otherPending = new HashMap<>();
+                Assert.assertEquals(id, dictionary.getOrCreateId(Triplet.parseNode(term), other, otherPending));
+                Assert.assertEquals(2, other.count());
+                dictionary.discard(otherPending);
+            }
+        }
+        // the batch was never written
+        dictionary.discard(pending);
+        Assert.assertEquals(TermDictionary.UNKNOWN, dictionary.getId(term));
+
+        store.add(new Triplet(Triplet.parseNode(SHOW), Triplet.parseNode(LABEL), Triplet.parseNode(term)));
+        Assert.assertTrue(dictionary.getId(term) > id);
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions());
+        Assert.assertEquals(term, store.querySPO(SHOW, LABEL).next().getObject().toString());
+    }
+
+    @Test
+    public void testTermBatchEviction() throws GraphStoreException {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setTermCacheSize(10));
+        String subject = "<http://example.org/s0>";
+        List<Triplet> triplets = new ArrayList<>();
+        for(int i = 0; i < 50; i++) {
+            triplets.add(Triplet.parse("<http://example.org/s" + i + ">|" + LABEL + "|\"label " + i + "\""));
+        }
+        // evicted from the term cache before the batch is written
+        triplets.add(Triplet.parse(subject + "|" + LABEL + "|\"last\""));
+        store.add(triplets);
+        Assert.assertEquals(2, store.count(subject, null, null));
+        Assert.assertEquals(50, store.querySPO().toList().stream().map(Triplet::getSubject).distinct().count());
+    }
+
+    @Test
+    public void testCount() throws FileNotFoundException, GraphStoreException {
+        loadFromFixture();
+        Assert.assertEquals(15, store.count(null, null, null));
+        Assert.assertEquals(4, store.count(SHOW, null, null));
+        Assert.assertEquals(2, store.count(null, LABEL, null));
+        Assert.assertEquals(0, store.count("<http://example.org/unknown>", null, null));
+        // memtable, then SST files, both approximate: the memtable count is sampled from its skip list
+        long estimate = store.estimateCount(null, null, null);
+        Assert.assertTrue(estimate > 0 && estimate <= 30);
+        store.compact();
+        estimate = store.estimateCount(null, null, null);
+        Assert.assertTrue(estimate > 0 && estimate <= 15);
+        Assert.assertEquals(0, store.estimateCount("<http://example.org/unknown>", null, null));
+    }
+
+    @Test
+    public void testConcurrentStatistics() throws Exception {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setEnableGraphStatistics(true).setWriteBatchSize(10));
+        List<Triplet> triplets = new ArrayList<>();
+        for(int i = 0; i < 2000; i++) {
+            triplets.add(Triplet.parse("<http://example.org/s" + i + ">|" + LABEL + "|\"label " + i + "\""));
+        }
+        // the same triplets added by several writers, in different orders
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Long>> adds = new ArrayList<>();
+            for(int i = 0; i < 8; i++) {
+                List<Triplet> shuffled = new ArrayList<>(triplets);
+                Collections.shuffle(shuffled, new Random(i));
+                adds.add(writers.submit(() -> store.add(shuffled.iterator())));
+            }
+            for(Future<Long> add : adds) {
+                add.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+        Assert.assertEquals(2000, store.statistics().getPredicateCount(Triplet.parseNode(LABEL)));
+    }
+
+    @Test
+    public void testConcurrentDropGraph() throws Exception {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setEnableGraphStatistics(true).setWriteBatchSize(10));
+        List<Triplet> triplets = new ArrayList<>();
+        for(int i = 0; i < 2000; i++) {
+            triplets.add(Triplet.parse("<http://example.org/s" + i + ">|" + LABEL + "|\"label " + i + "\""));
+        }
+        store.add(triplets);
+        // removes racing the drop must not decrement the counts it cleared
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> removes = new ArrayList<>();
+            for(int i = 0; i < 4; i++) {
+                List<Triplet> part = triplets.subList(i * 500, (i + 1) * 500);
+                removes.add(writers.submit(() -> store.remove(part)));
+            }
+            store.dropGraph(null);
+            for(Future<?> remove : removes) {
+                remove.get();
+            }
+        } finally {
+            writers.shutdownNow();
+        }
+        GraphStatistics statistics = store.statistics();
+        Assert.assertEquals(0, statistics.getTripletCount());
+        Assert.assertEquals(0, statistics.getPredicateCount(Triplet.parseNode(LABEL)));
+    }
+
+    @Test
+    public void testStatistics() throws FileNotFoundException, GraphStoreException {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setEnableGraphStatistics(true));
+        loadFromFixture();
+        // duplicates are not counted
+        loadFromFixture();
+        GraphStatistics statistics = store.statistics();
+        Assert.assertEquals(15, statistics.getTripletCount());
+        Assert.assertEquals(2, statistics.getPredicateCount(Triplet.parseNode(LABEL)));
+        Assert.assertEquals(2, statistics.getClassCount(Triplet.parseNode("<urn:resource>")));
+
+        store.remove(store.querySPO(SHOW, LABEL).toList());
+        Assert.assertEquals(2, store.removeAll(null, "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>", "<urn:resource>"));
+        statistics = store.statistics();
+        Assert.assertEquals(11, statistics.getTripletCount());
+        Assert.assertEquals(0, statistics.getPredicateCount(Triplet.parseNode(LABEL)));
+        Assert.assertEquals(0, statistics.getClassCount(Triplet.parseNode("<urn:resource>")));
+
+        store.rebuildStatistics();
+        Assert.assertEquals(statistics.getPredicateCounts(), store.statistics().getPredicateCounts());
+        store.dropGraph(null);
+        Assert.assertEquals(0, store.statistics().getTripletCount());
+    }
+
+    @Test
+    public void testSubjectIterator() throws FileNotFoundException {
+        loadFromFixture();
+        int subjects = 0;
+        int triplets = 0;
+        SubjectIterator iterator = store.subjectIterator();
+        while(iterator.hasNext()) {
+            SubjectIterator.SubjectIteration iteration = iterator.next();
+            subjects++;
+            while(iteration.iterator.hasNext()) {
+                PredicateIterator.PredicateIteration predicate = iteration.iterator.next();
+                while(predicate.iterator.hasNext()) {
+                    Assert.assertEquals(iteration.subject, predicate.iterator.next().getSubject());
+                    triplets++;
+                }
+            }
+        }
+        Assert.assertEquals(5, subjects);
+        Assert.assertEquals(15, triplets);
+
+        // unread groups are skipped
+        subjects = 0;
+        iterator = store.subjectIterator();
+        while(iterator.hasNext()) {
+            iterator.next();
+            subjects++;
+        }
+        Assert.assertEquals(5, subjects);
+
+        // grouping on nodes for triplets not read from the store
+        List<Triplet> list = new ArrayList<>();
+        for(Triplet triplet : store.querySPO("<http://en.wikipedia.org/wiki/Helium2>").toList()) {
+            list.add(new Triplet(triplet.getSubject(), triplet.getPredicate(), triplet.getObject()));
+        }
+        int predicates = 0;
+        PredicateIterator predicateIterator = new PredicateIterator(list.iterator());
+        while(predicateIterator.hasNext()) {
+            predicateIterator.next();
+            predicates++;
+        }
+        Assert.assertEquals(4, predicates);
+    }
+
+    @Test
+    public void testParallelStream() throws FileNotFoundException, GraphStoreException {
+        loadFromFixture();
+        try (Stream<Triplet> stream = store.querySPO().stream().parallel()) {
+            Assert.assertEquals(15, stream.count());
+        }
+        store.compact();
+        try (Stream<Triplet> stream = store.match(null, LABEL, null).stream().parallel()) {
+            Assert.assertEquals(2, stream.count());
+        }
+        try (Stream<Triplet> stream = store.querySPO().stream().parallel()) {
+            List<String> subjects = stream.map(triplet -> triplet.getSubject().toString()).distinct().collect(Collectors.toList());
+            Assert.assertEquals(5, subjects.size());
+            Assert.assertEquals(SHOW, subjects.get(0));
+        }
+
+        // the prefix half of a split precedes the remaining keys
+        try (TripletSpliterator spliterator = new TripletSpliterator(store, store.querySPO())) {
+            Assert.assertTrue(spliterator.estimateSize() > 0);
+            Spliterator<Triplet> prefix = spliterator.trySplit();
+            Assert.assertNotNull(prefix);
+            List<Triplet> triplets = new ArrayList<>();
+            prefix.forEachRemaining(triplets::add);
+            int split = triplets.size();
+            spliterator.forEachRemaining(triplets::add);
+            Assert.assertTrue(split > 0 && split < 15);
+            Assert.assertEquals(15, triplets.size());
+            Assert.assertTrue(TripletIterator.compare(spoKey(triplets.get(split - 1)), spoKey(triplets.get(split))) < 0);
+        }
+    }
+
+    @Test
+    public void testMetrics() throws IOException, GraphStoreException {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setEnableStatistics(true));
+        loadFromFixture();
+        GraphStoreMetrics metrics = store.getMetrics();
+        Assert.assertEquals(15, metrics.getTripletsAdded());
+        Assert.assertTrue(metrics.getTimer(GraphStoreMetrics.Operation.ADD).getCount() > 0);
+
+        Assert.assertEquals(15, store.querySPO().toList().size());
+        Assert.assertEquals(15, metrics.getTripletsRead());
+        GraphStoreMetrics.Timer query = metrics.getTimer(GraphStoreMetrics.Operation.QUERY);
+        Assert.assertEquals(1, query.getCount());
+        Assert.assertEquals(1, metrics.getTimer(GraphStoreMetrics.Operation.ITERATE).getCount());
+        Assert.assertTrue(query.getPercentile(0.99, TimeUnit.NANOSECONDS) <= query.getMax(TimeUnit.NANOSECONDS));
+
+        new GraphSerializer(store, "nt", prefixMapping).serialize(new ByteArrayOutputStream());
+        Assert.assertEquals(1, metrics.getTimer(GraphStoreMetrics.Operation.SERIALIZE).getCount());
+        // iterators of the read session are counted in the store metrics
+        Assert.assertEquals(30, metrics.getTripletsRead());
+
+        Assert.assertTrue(metrics.getMemTableSize() > 0);
+        Assert.assertTrue(metrics.getBytesWritten() > 0);
+        Assert.assertFalse(metrics.isWriteStopped());
+        Map<String, Number> values = metrics.toMap();
+        Assert.assertEquals(15L, values.get("graphstore.triplets.added"));
+        Assert.assertTrue(values.containsKey("graphstore.compaction.pending.bytes"));
+        Assert.assertTrue(values.containsKey("graphstore.sst.live.bytes"));
+    }
+
+    private static byte[] spoKey(Triplet triplet) {
+        LazyTriplet lazy = (LazyTriplet) triplet;
+        return TripletIndex.SPO.encode(lazy.getGraphId(), lazy.getSubjectId(), lazy.getPredicateId(), lazy.getObjectId());
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.loader;
+
+import com.conjecto.graphstore.AbstractTest;
+import com.conjecto.graphstore.GraphLoader;
+import com.conjecto.graphstore.Triplet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.List;
+
+/**
+ * NQuadsLoaderTest
+ */
+public class NQuadsLoaderTest extends AbstractTest {
+    static final String SHOW = "<http://example.org/show/218>";
+    static final String LABEL = "<http://www.w3.org/2000/01/rdf-schema#label>";
+    static final String GRAPH_A = "<http://example.org/graph/a>";
+
+    @Test
+    public void testLoad() throws FileNotFoundException {
+        File sampleFile = new File(getClass().getClassLoader().getResource("fixtures/sample.nq").getFile());
+        GraphLoader loader = new GraphLoader(store, "nq");
+        loader.load(new FileInputStream(sampleFile));
+
+        Assert.assertEquals(6, store.queryGSPO().toList().size());
+        // the default graph only
+        List<Triplet> triplets = store.querySPO().toList();
+        Assert.assertEquals(1, triplets.size());
+        Assert.assertNull(triplets.get(0).getGraph());
+
+        triplets = store.queryGSPO(GRAPH_A).toList();
+        Assert.assertEquals(3, triplets.size());
+        Assert.assertEquals(GRAPH_A, triplets.get(0).getGraph().toString());
+        Assert.assertEquals(2, store.queryGSPO(GRAPH_A, SHOW).toList().size());
+        Assert.assertEquals(2, store.queryGPOS(GRAPH_A, LABEL).toList().size());
+        Assert.assertEquals(1, store.match(GRAPH_A, null, LABEL, "\"Happy Days\"").toList().size());
+        Assert.assertEquals(0, store.queryGSPO("<http://example.org/graph/unknown>").toList().size());
+    }
+}
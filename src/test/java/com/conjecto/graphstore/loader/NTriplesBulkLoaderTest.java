@@ -0,0 +1,81 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.loader;
+
+import com.conjecto.graphstore.AbstractTest;
+import com.conjecto.graphstore.GraphLoader;
+import com.conjecto.graphstore.GraphStore;
+import com.conjecto.graphstore.SstBulkWriter;
+import com.conjecto.graphstore.Triplet;
+import com.conjecto.graphstore.exception.GraphStoreException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.util.List;
+
+/**
+ * NTriplesBulkLoaderTest
+ */
+public class NTriplesBulkLoaderTest extends AbstractTest {
+    @Test
+    public void testLoad() throws FileNotFoundException {
+        File sampleFile = new File(getClass().getClassLoader().getResource("fixtures/sample.nt").getFile());
+        GraphLoader loader = new GraphLoader(store, "nt-bulk");
+        loader.load(new FileInputStream(sampleFile));
+        Assert.assertEquals(15, store.querySPO().toList().size());
+        Assert.assertEquals(2, store.queryPOS("<http://www.w3.org/2000/01/rdf-schema#label>").toList().size());
+    }
+
+    @Test
+    public void testMergeRuns() throws FileNotFoundException {
+        loadFromFixture();
+        List<Triplet> triplets = store.querySPO().toList();
+        // small chunks to merge several runs, with the already loaded triplets as duplicates
+        try (SstBulkWriter writer = store.newBulkWriter().setChunkSize(4)) {
+            for(Triplet triplet : triplets) {
+                writer.add(triplet);
+            }
+            Assert.assertEquals(15, writer.finish());
+        }
+        Assert.assertEquals(15, store.querySPO().toList().size());
+        Assert.assertEquals(0, db.getRoot().listFiles((dir, name) -> name.startsWith("bulk") || name.startsWith("BULK_INGEST")).length);
+    }
+
+    @Test
+    public void testTermEviction() throws GraphStoreException {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setTermCacheSize(10));
+        String subject = "<http://example.org/s0>";
+        // one chunk, its terms evicted from the term cache before they are written
+        try (SstBulkWriter writer = store.newBulkWriter()) {
+            for(int i = 0; i < 50; i++) {
+                writer.add(Triplet.parse("<http://example.org/s" + i + ">|<http://example.org/p>|\"value " + i + "\""));
+            }
+            writer.add(Triplet.parse(subject + "|<http://example.org/p>|\"last\""));
+            Assert.assertEquals(51, writer.finish());
+        }
+        Assert.assertEquals(2, store.count(subject, null, null));
+        Assert.assertEquals(50, store.querySPO().toList().stream().map(Triplet::getSubject).distinct().count());
+    }
+
+    @Test
+    public void testStatistics() throws FileNotFoundException, GraphStoreException {
+        store.close();
+        store = GraphStore.open(db.getRoot().getAbsolutePath(), createOptions().setEnableGraphStatistics(true));
+        File sampleFile = new File(getClass().getClassLoader().getResource("fixtures/sample.nt").getFile());
+        new GraphLoader(store, "nt-bulk").load(new FileInputStream(sampleFile));
+        // already loaded triplets are not counted again
+        new GraphLoader(store, "nt-bulk").load(new FileInputStream(sampleFile));
+        Assert.assertEquals(15, store.statistics().getTripletCount());
+        Assert.assertEquals(2, store.statistics().getClassCount(Triplet.parseNode("<urn:resource>")));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.loader;
+
+import com.conjecto.graphstore.AbstractTest;
+import com.conjecto.graphstore.GraphLoader;
+import com.conjecto.graphstore.TermDictionary;
+import com.conjecto.graphstore.Triplet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NTriplesParallelLoaderTest
+ */
+public class NTriplesParallelLoaderTest extends AbstractTest {
+    @Test
+    public void testLoad() throws FileNotFoundException {
+        File sampleFile = new File(getClass().getClassLoader().getResource("fixtures/sample.nt").getFile());
+        GraphLoader loader = new GraphLoader(store, "nt-parallel");
+        loader.load(new FileInputStream(sampleFile));
+        Assert.assertEquals(15, store.querySPO().toList().size());
+    }
+
+    @Test
+    public void testSmallChunks() throws FileNotFoundException {
+        File sampleFile = new File(getClass().getClassLoader().getResource("fixtures/sample.nt").getFile());
+        // chunks smaller than a line are grown
+        new NTriplesParallelLoader(3).setChunkSize(64).load(store, new FileInputStream(sampleFile));
+        Assert.assertEquals(15, store.querySPO().toList().size());
+    }
+
+    @Test
+    public void testWorkerFailure() {
+        byte[] line = "<http://example.org/s> <http://example.org/p> \"value\" .\n".getBytes(StandardCharsets.UTF_8);
+        long length = 64L * 1024 * 1024;
+        AtomicLong read = new AtomicLong();
+        // generated input, counting the bytes read
+        InputStream input = new InputStream() {
+            @Override
+            public int read() {
+                byte[] b = new byte[1];
+                return read(b, 0, 1) < 0 ? -1 : b[0];
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                long position = read.get();
+                if(position >= length) {
+                    return -1;
+                }
+                int count = (int) Math.min(len, length - position);
+                for(int i = 0; i < count; i++) {
+                    b[off + i] = line[(int) ((position + i) % line.length)];
+                }
+                read.addAndGet(count);
+                return count;
+            }
+        };
+        NTriplesParallelLoader loader = new NTriplesParallelLoader(2) {
+            @Override
+            protected List<Triplet> parse(byte[] chunk, TermDictionary dictionary) {
+                throw new IllegalArgumentException("invalid chunk");
+            }
+        }.setChunkSize(4096);
+        try {
+            loader.load(store, input);
+            Assert.fail("The worker failure must be reported");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals("invalid chunk", e.getMessage());
+        }
+        // the input is not read to the end
+        Assert.assertTrue(read.get() < length);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.query;
+
+import com.conjecto.graphstore.AbstractTest;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * BgpQueryTest
+ */
+public class BgpQueryTest extends AbstractTest {
+    private static final String TYPE = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+    private static final String SHOW = "<http://example.org/elements/show>";
+
+    @Test
+    public void testNestedLoopJoin() throws FileNotFoundException {
+        loadFromFixture();
+        BgpQuery query = new BgpQuery(store)
+            .add("?x", TYPE, "<urn:resource>")
+            .add("?x", SHOW, "?show")
+            .add("?show", "<http://www.w3.org/2000/01/rdf-schema#label>", "?label");
+        List<Binding> bindings = toList(query.execute());
+        assertEquals(4, bindings.size());
+        for(Binding binding : bindings) {
+            assertEquals("http://example.org/show/218", binding.get("?show").getLabel());
+            assertTrue(binding.get("?label").getLabel().startsWith("That Seventies Show"));
+        }
+        assertEquals(3, query.getVariables().size());
+    }
+
+    @Test
+    public void testMergeJoin() throws FileNotFoundException {
+        loadFromFixture();
+        BgpQuery query = new BgpQuery(store)
+            .add("?x", TYPE, "<urn:resource>")
+            .add("?x", SHOW, "<http://example.org/show/218>");
+        assertTrue(query.explain().contains("merge join"));
+        List<Binding> bindings = toList(query.execute());
+        assertEquals(2, bindings.size());
+        assertEquals("http://en.wikipedia.org/wiki/Helium", bindings.get(0).get("?x").getLabel());
+        assertEquals("http://en.wikipedia.org/wiki/Helium2", bindings.get(1).get("?x").getLabel());
+    }
+
+    @Test
+    public void testRepeatedVariable() throws FileNotFoundException {
+        loadFromFixture();
+        BgpQuery query = new BgpQuery(store).add("?x", "?p", "?x");
+        assertFalse(query.execute().hasNext());
+    }
+
+    @Test
+    public void testUnknownTerm() throws FileNotFoundException {
+        loadFromFixture();
+        BgpQuery query = new BgpQuery(store)
+            .add("?x", TYPE, "<urn:unknown>")
+            .add("?x", SHOW, "?show");
+        assertFalse(query.execute().hasNext());
+        assertFalse(query.setGraph("<urn:unknown>").execute().hasNext());
+    }
+
+    private static List<Binding> toList(BindingIterator iterator) {
+        List<Binding> bindings = new ArrayList<>();
+        iterator.forEachRemaining(bindings::add);
+        iterator.close();
+        return bindings;
+    }
+}
@@ -9,12 +9,17 @@
 package com.conjecto.graphstore.serializer;
 
 import com.conjecto.graphstore.AbstractTest;
+import com.conjecto.graphstore.GraphStoreMetrics;
+import com.conjecto.graphstore.Triplet;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Created by blaise on 16/12/17.
@@ -30,4 +35,84 @@ public class JsonLDFrameSerializerTest extends AbstractTest {
 
         System.out.println(output.toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCursorReuse() throws IOException {
+        loadFromFixture();
+        GraphStoreMetrics.Timer query = store.getMetrics().getTimer(GraphStoreMetrics.Operation.QUERY);
+        long queries = query.getCount();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonLDFrameSerializer().serialize(output, store, prefixMapping);
+
+        // the rdf:type scan and one SPO cursor per depth
+        Assert.assertEquals(queries + 3, query.getCount());
+        Assert.assertTrue(output.toString().contains("\"ns0:text\": \"i'm a bnode\""));
+        Assert.assertTrue(output.toString().contains("\"rdfs:label\""));
+    }
+
+    @Test
+    public void testMaxDepth() throws IOException {
+        loadFromFixture();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonLDFrameSerializer().setMaxDepth(0).serialize(output, store, prefixMapping);
+
+        // referenced nodes are not embedded
+        Assert.assertTrue(output.toString().contains("\"@id\": \"_:24234657\""));
+        Assert.assertFalse(output.toString().contains("i'm a bnode"));
+        Assert.assertFalse(output.toString().contains("\"rdfs:label\""));
+    }
+
+    @Test
+    public void testMaxNodes() throws IOException {
+        loadFromFixture();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonLDFrameSerializer().setMaxNodes(1).setBatchSize(1).serialize(output, store, prefixMapping);
+
+        // only the first reference of wiki:Helium is embedded, show/218 is then embedded by wiki:Helium2
+        Assert.assertTrue(output.toString().contains("i'm a bnode"));
+        Assert.assertTrue(output.toString().contains("\"rdfs:label\""));
+        Assert.assertTrue(output.toString().indexOf("\"rdfs:label\"") > output.toString().indexOf("wiki:Helium2"));
+    }
+
+    @Test
+    public void testBatchSize() throws IOException {
+        loadFromFixture();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new JsonLDFrameSerializer().serialize(expected, store, prefixMapping);
+
+        // descriptions read and children prefetched a triplet at a time
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonLDFrameSerializer().setBatchSize(1).serialize(output, store, prefixMapping);
+        Assert.assertEquals(expected.toString(), output.toString());
+    }
+
+    @Test
+    public void testDeepChain() throws IOException {
+        List<Triplet> triplets = new ArrayList<>();
+        triplets.add(Triplet.parse("<http://example.org/n0>|<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>|<urn:resource>"));
+        for(int i = 0; i < 1000; i++) {
+            triplets.add(Triplet.parse("<http://example.org/n" + i + ">|<http://example.org/next>|<http://example.org/n" + (i + 1) + ">"));
+        }
+        store.add(triplets.iterator());
+
+        // nodes are written from an explicit stack
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new JsonLDFrameSerializer().setMaxDepth(Integer.MAX_VALUE).serialize(output, store, prefixMapping);
+        Assert.assertEquals(1001, occurrences(output.toString(), "\"@id\""));
+        Assert.assertEquals(1000, occurrences(output.toString(), "\"ns0:next\": {"));
+
+        // the default depth limit: the last embedded node references the next one
+        output = new ByteArrayOutputStream();
+        new JsonLDFrameSerializer().serialize(output, store, prefixMapping);
+        Assert.assertEquals(JsonLDFrameSerializer.DEFAULT_MAX_DEPTH + 2, occurrences(output.toString(), "\"@id\""));
+    }
+
+    private static int occurrences(String text, String value) {
+        int count = 0;
+        for(int i = text.indexOf(value); i >= 0; i = text.indexOf(value, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
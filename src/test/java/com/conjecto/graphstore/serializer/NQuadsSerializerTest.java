@@ -0,0 +1,39 @@
+/*
+ * This file is part of the graphstore project.
+ * 2022
+ * @author Conjecto <contact@conjecto.com>
+ * SPDX-License-Identifier: Apache-2.0
+ * For the full copyright and license information, please view the LICENSE file that was distributed with this source code.
+ */
+
+package com.conjecto.graphstore.serializer;
+
+import com.conjecto.graphstore.AbstractTest;
+import com.conjecto.graphstore.GraphLoader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * NQuadsSerializerTest
+ */
+public class NQuadsSerializerTest extends AbstractTest {
+    @Test
+    public void testSerialize() throws IOException {
+        File sampleFile = new File(getClass().getClassLoader().getResource("fixtures/sample.nq").getFile());
+        new GraphLoader(store, "nq").load(new FileInputStream(sampleFile));
+        NQuadsSerializer serializer = new NQuadsSerializer();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        serializer.serialize(output, store, prefixMapping);
+
+        String[] lines = output.toString().split("\n");
+        Assert.assertEquals(6, lines.length);
+        Assert.assertTrue(lines[0].endsWith("\"That Seventies Show\" ."));
+        Assert.assertTrue(lines[5].endsWith("<http://example.org/graph/b> ."));
+    }
+}